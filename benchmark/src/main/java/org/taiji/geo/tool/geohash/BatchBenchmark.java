@@ -0,0 +1,88 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列式批量编码/解码与逐点编码的对比
+ * 分数以单个坐标为一次操作
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    @Param({"base16:16", "base32:12"})
+    public String precision;
+
+    @Param({BenchmarkData.RANDOM, BenchmarkData.CLUSTERED})
+    public String distribution;
+
+    private GeoHash geoHash;
+    private double[] lats;
+    private double[] lngs;
+    private long[] bits;
+    private char[] chars;
+    private double[] latsOut;
+    private double[] lngsOut;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        geoHash = BenchmarkData.geoHash(precision);
+        BenchmarkData data = BenchmarkData.generate(distribution, BenchmarkData.SIZE);
+        lats = data.lats();
+        lngs = data.lngs();
+        bits = new long[BenchmarkData.SIZE];
+        chars = new char[BenchmarkData.SIZE * geoHash.getLength()];
+        latsOut = new double[BenchmarkData.SIZE];
+        lngsOut = new double[BenchmarkData.SIZE];
+        geoHash.toBits(lats, lngs, bits);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public long[] toBitsScalar() {
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            bits[i] = geoHash.toBits(new Position(lats[i], lngs[i]));
+        }
+        return bits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public long[] toBitsBatch() {
+        geoHash.toBits(lats, lngs, bits);
+        return bits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public char[] encodeBatch() {
+        geoHash.encode(lats, lngs, chars);
+        return chars;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public double[] decodeBatch() {
+        geoHash.decode(bits, latsOut, lngsOut);
+        return latsOut;
+    }
+}
@@ -0,0 +1,109 @@
+package org.taiji.geo.tool.geohash;
+
+import java.util.Random;
+
+/**
+ * 基准测试的坐标数据
+ * random: 全球范围内均匀分布
+ * clustered: 围绕若干城市中心的正态分布, 模拟真实的GPS数据
+ *
+ * @author tim
+ */
+final class BenchmarkData {
+    static final String RANDOM = "random";
+    static final String CLUSTERED = "clustered";
+
+    /**
+     * 每个线程的数据集大小, 必须为2的幂
+     */
+    static final int SIZE = 1 << 12;
+    static final int MASK = SIZE - 1;
+
+    private static final long SEED = 20180810L;
+
+    /**
+     * 聚集分布的中心点: 上海, 北京, 杭州, 深圳, 纽约, 伦敦
+     */
+    private static final double[][] CENTERS = new double[][]{
+        {31.192911, 121.437013},
+        {39.863955, 116.373567},
+        {30.293022, 120.109774},
+        {22.543099, 114.057868},
+        {40.712776, -74.005974},
+        {51.507351, -0.127758},
+    };
+
+    /**
+     * 聚集分布的标准差, 单位: 度, 约5km
+     */
+    private static final double SIGMA = 0.05;
+
+    private final double[] lats;
+    private final double[] lngs;
+
+    private BenchmarkData(double[] lats, double[] lngs) {
+        this.lats = lats;
+        this.lngs = lngs;
+    }
+
+    double[] lats() {
+        return lats;
+    }
+
+    double[] lngs() {
+        return lngs;
+    }
+
+    static BenchmarkData generate(String distribution, int size) {
+        Random random = new Random(SEED);
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        if (RANDOM.equals(distribution)) {
+            for (int i = 0; i < size; i++) {
+                lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+                lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+            }
+        } else if (CLUSTERED.equals(distribution)) {
+            for (int i = 0; i < size; i++) {
+                double[] center = CENTERS[random.nextInt(CENTERS.length)];
+                lats[i] = center[0] + random.nextGaussian() * SIGMA;
+                lngs[i] = center[1] + random.nextGaussian() * SIGMA;
+            }
+        } else {
+            throw new IllegalArgumentException("unknown distribution: " + distribution);
+        }
+        return new BenchmarkData(lats, lngs);
+    }
+
+    /**
+     * 解析精度描述, 如 base32:12
+     *
+     * @param precision 精度描述
+     * @return {@link GeoHash}
+     */
+    static GeoHash geoHash(String precision) {
+        int index = precision.indexOf(':');
+        String base = precision.substring(0, index);
+        int length = hashLength(precision);
+        switch (base) {
+            case "base4":
+                return Base4.getBase4(length);
+            case "base16":
+                return Base16.getBase16(length);
+            case "base32":
+                return Base32.getBase32(length);
+            default:
+                throw new IllegalArgumentException("unknown precision: " + precision);
+        }
+    }
+
+    /**
+     * 精度描述中的hash串长度
+     *
+     * @param precision 精度描述
+     * @return int
+     */
+    static int hashLength(String precision) {
+        return Integer.parseInt(precision.substring(precision.indexOf(':') + 1));
+    }
+}
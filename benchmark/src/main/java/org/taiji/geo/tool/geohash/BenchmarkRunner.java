@@ -0,0 +1,35 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 依次以单线程和多线程运行, 并开启gc profiler统计分配速率
+ * 支持JMH的全部命令行参数, 如 -p precision=base32:12 GeoHashBenchmark.encode
+ * 指定 -t 时只按指定的线程数运行一次
+ *
+ * @author tim
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.getThreads().hasValue()) {
+            new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .threads(threads);
+            new Runner(builder.build()).run();
+        }
+    }
+}
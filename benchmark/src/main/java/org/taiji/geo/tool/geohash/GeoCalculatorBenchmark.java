@@ -0,0 +1,184 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoCalculator距离, 方位角计算的基准测试
+ * 每次调用以相邻的两个点作为起点和终点; 半径过滤以第一个点为圆心
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoCalculatorBenchmark {
+    @Param({BenchmarkData.RANDOM, BenchmarkData.CLUSTERED})
+    public String distribution;
+
+    /**
+     * 半径过滤的半径, 单位: 米
+     */
+    private static final double RADIUS = 5000;
+
+    private Position[] positions;
+    private double[] lats;
+    private double[] lngs;
+    private double[] distances;
+    private int[] indexes;
+    private double[] bearings;
+    private double[] steps;
+    private double[] outLats;
+    private double[] outLngs;
+    private PreparedOrigin origin;
+    private VincentySolver solver;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData data = BenchmarkData.generate(distribution, BenchmarkData.SIZE);
+        positions = new Position[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            positions[i] = new Position(data.lats()[i], data.lngs()[i]);
+        }
+        lats = data.lats();
+        lngs = data.lngs();
+        distances = new double[BenchmarkData.SIZE];
+        indexes = new int[BenchmarkData.SIZE];
+        bearings = new double[BenchmarkData.SIZE];
+        outLats = new double[BenchmarkData.SIZE];
+        outLngs = new double[BenchmarkData.SIZE];
+        steps = new double[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            bearings[i] = i % 360;
+            steps[i] = 1000;
+        }
+        origin = new PreparedOrigin(positions[0].getLat(), positions[0].getLng());
+        solver = new VincentySolver(positions[0].getLat(), positions[0].getLng());
+    }
+
+    private int next() {
+        return cursor++ & BenchmarkData.MASK;
+    }
+
+    @Benchmark
+    public double harvesineDistance() {
+        int i = next();
+        return GeoCalculator.harvesineDistance(positions[i], positions[(i + 1) & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public double equirectangularDistance() {
+        int i = next();
+        Position stand = positions[i];
+        Position fore = positions[(i + 1) & BenchmarkData.MASK];
+        return GeoCalculator.equirectangularDistance(stand.getLat(), stand.getLng(), fore.getLat(), fore.getLng());
+    }
+
+    @Benchmark
+    public double preparedSquaredDistance() {
+        Position fore = positions[next()];
+        return origin.squaredDistance(fore.getLat(), fore.getLng());
+    }
+
+    @Benchmark
+    public boolean harvesineWithin() {
+        Position fore = positions[next()];
+        return GeoCalculator.harvesineDistance(origin.getLat(), origin.getLng(), fore.getLat(), fore.getLng()) <= RADIUS;
+    }
+
+    @Benchmark
+    public boolean preparedWithin() {
+        Position fore = positions[next()];
+        return origin.within(fore.getLat(), fore.getLng(), RADIUS);
+    }
+
+    /**
+     * 一次计算原点到全部{@link BenchmarkData#SIZE}个点的距离
+     */
+    @Benchmark
+    public double[] harvesineDistances() {
+        GeoCalculator.harvesineDistances(origin.getLat(), origin.getLng(), lats, lngs, distances);
+        return distances;
+    }
+
+    /**
+     * 一次判断全部{@link BenchmarkData#SIZE}个点是否在圆内
+     */
+    @Benchmark
+    public int withinRadius() {
+        return GeoCalculator.withinRadius(origin.getLat(), origin.getLng(), lats, lngs, RADIUS, indexes);
+    }
+
+    @Benchmark
+    public double gcdDistance() {
+        int i = next();
+        return GeoCalculator.gcdDistance(positions[i], positions[(i + 1) & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public double vincentyDistance() {
+        int i = next();
+        return GeoCalculator.vincentyDistance(positions[i], positions[(i + 1) & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public double preparedVincentyDistance() {
+        Position fore = positions[next()];
+        return solver.distance(fore.getLat(), fore.getLng());
+    }
+
+    /**
+     * 一次计算原点到全部{@link BenchmarkData#SIZE}个点的椭球体距离
+     */
+    @Benchmark
+    public double[] vincentyDistances() {
+        solver.distances(lats, lngs, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public double bearing() {
+        int i = next();
+        return GeoCalculator.bearing(positions[i], positions[(i + 1) & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public Position pointAt() {
+        int i = next();
+        return GeoCalculator.pointAt(positions[i], i % 360, 1000);
+    }
+
+    /**
+     * 球面模型批量正算, 距离取1000米
+     */
+    @Benchmark
+    public double[] pointsAt() {
+        GeoCalculator.pointsAt(origin.getLat(), origin.getLng(), bearings, steps, outLats, outLngs);
+        return outLats;
+    }
+
+    /**
+     * 椭球体模型批量正算, 距离取1000米
+     */
+    @Benchmark
+    public double[] vincentyDestinations() {
+        solver.destinations(bearings, steps, outLats, outLngs);
+        return outLats;
+    }
+}
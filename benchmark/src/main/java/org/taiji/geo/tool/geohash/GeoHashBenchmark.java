@@ -0,0 +1,112 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoHash编码, 解码, 邻近块计算的基准测试
+ * 覆盖Base4, Base16, Base32的所有精度
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoHashBenchmark {
+    @Param({
+        "base4:1", "base4:2", "base4:3", "base4:4", "base4:5", "base4:6", "base4:7", "base4:8",
+        "base4:9", "base4:10", "base4:11", "base4:12", "base4:13", "base4:14", "base4:15", "base4:16",
+        "base4:17", "base4:18", "base4:19", "base4:20", "base4:21", "base4:22", "base4:23", "base4:24",
+        "base4:25", "base4:26", "base4:27", "base4:28", "base4:29", "base4:30", "base4:31", "base4:32",
+        "base16:1", "base16:2", "base16:3", "base16:4", "base16:5", "base16:6", "base16:7", "base16:8",
+        "base16:9", "base16:10", "base16:11", "base16:12", "base16:13", "base16:14", "base16:15", "base16:16",
+        "base32:1", "base32:2", "base32:3", "base32:4", "base32:5", "base32:6",
+        "base32:7", "base32:8", "base32:9", "base32:10", "base32:11", "base32:12",
+    })
+    public String precision;
+
+    @Param({BenchmarkData.RANDOM, BenchmarkData.CLUSTERED})
+    public String distribution;
+
+    private GeoHash geoHash;
+    private double[] lats;
+    private double[] lngs;
+    private String[] hashes;
+    private long[] bits;
+    private final double[] box = new double[4];
+    private final long[] cells = new long[Neibor.SIZE];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        geoHash = BenchmarkData.geoHash(precision);
+        BenchmarkData data = BenchmarkData.generate(distribution, BenchmarkData.SIZE);
+        lats = data.lats();
+        lngs = data.lngs();
+        hashes = new String[BenchmarkData.SIZE];
+        bits = new long[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            hashes[i] = geoHash.encode(lats[i], lngs[i]);
+            bits[i] = geoHash.toBits(lats[i], lngs[i]);
+        }
+    }
+
+    private int next() {
+        return cursor++ & BenchmarkData.MASK;
+    }
+
+    @Benchmark
+    public String encode() {
+        int i = next();
+        return geoHash.encode(lats[i], lngs[i]);
+    }
+
+    @Benchmark
+    public long toBits() {
+        int i = next();
+        return geoHash.toBits(lats[i], lngs[i]);
+    }
+
+    @Benchmark
+    public Position decode() {
+        return geoHash.decode(hashes[next()]);
+    }
+
+    @Benchmark
+    public double decodeBits() {
+        long b = bits[next()];
+        return geoHash.decodeLat(b) + geoHash.decodeLng(b);
+    }
+
+    @Benchmark
+    public double[] decodeBox() {
+        geoHash.decodeBox(bits[next()], box);
+        return box;
+    }
+
+    @Benchmark
+    public Neibor neibor() {
+        return geoHash.getNeibor(hashes[next()]);
+    }
+
+    @Benchmark
+    public long[] neighbors() {
+        geoHash.neighbors(bits[next()], cells);
+        return cells;
+    }
+}
@@ -0,0 +1,129 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比特交错: Morton magic mask实现与逐位循环实现的对比
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterleaveBenchmark {
+    @Param({"base4:32", "base16:16", "base32:5", "base32:12"})
+    public String precision;
+
+    private GeoHash geoHash;
+    private int[] latBits;
+    private int[] lngBits;
+    private String[] hashes;
+    private int latTimes;
+    private int lngTimes;
+    private int charLen;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        geoHash = BenchmarkData.geoHash(precision);
+        lngTimes = (geoHash.getBitsLength() + 1) / 2;
+        latTimes = geoHash.getBitsLength() / 2;
+        charLen = geoHash.getBitsLength() / BenchmarkData.hashLength(precision);
+        BenchmarkData data = BenchmarkData.generate(BenchmarkData.RANDOM, BenchmarkData.SIZE);
+        latBits = new int[BenchmarkData.SIZE];
+        lngBits = new int[BenchmarkData.SIZE];
+        hashes = new String[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            long bits = geoHash.toBits(data.lats()[i], data.lngs()[i]);
+            latBits[i] = geoHash.latBits(bits);
+            lngBits[i] = geoHash.lngBits(bits);
+            hashes[i] = geoHash.toHash(bits);
+        }
+    }
+
+    private int next() {
+        return cursor++ & BenchmarkData.MASK;
+    }
+
+    @Benchmark
+    public long compactMorton() {
+        int i = next();
+        return geoHash.compact(lngBits[i], latBits[i]);
+    }
+
+    @Benchmark
+    public long compactLoop() {
+        int i = next();
+        return loopCompact(lngBits[i], latBits[i]);
+    }
+
+    @Benchmark
+    public int[] separateMorton() {
+        return geoHash.separate(hashes[next()]);
+    }
+
+    @Benchmark
+    public int[] separateLoop() {
+        return loopSeparate(hashes[next()]);
+    }
+
+    /**
+     * 原逐位循环实现
+     */
+    private long loopCompact(int even, int odd) {
+        long eL = (long) even;
+        long oL = (long) odd;
+        long e = 0;
+        long o = 0;
+        for (int i = 0; i < 32; i++) {
+            e |= (eL << (i + 32) >>> 63) << (63 - i * 2);
+            o |= (oL << (i + 32) >>> 63) << (62 - i * 2);
+        }
+        if (lngTimes > latTimes) {
+            e >>= 1;
+            o <<= 1;
+        }
+        return e | o;
+    }
+
+    /**
+     * 原逐字符逐位循环实现
+     */
+    private int[] loopSeparate(String hash) {
+        int lat = 0;
+        int lng = 0;
+        char[] chars = hash.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            byte b = (byte) ((geoHash.charDecode(chars[i]) << (8 - charLen)) >> (8 - charLen));
+            for (int j = 0; j < 8; j++) {
+                int bit = b << (j + 24) >>> 31;
+                if (bit == 0) {
+                    continue;
+                }
+                int k = i * charLen + j - (8 - charLen);
+                if (k % 2 == 0) {
+                    lng |= 1 << lngTimes - k / 2 - 1;
+                } else {
+                    lat |= 1 << latTimes - (k - 1) / 2 - 1;
+                }
+            }
+        }
+        return new int[]{lat, lng};
+    }
+}
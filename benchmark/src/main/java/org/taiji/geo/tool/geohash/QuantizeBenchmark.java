@@ -0,0 +1,69 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 坐标量化: 直接计算与逐位二分查找的对比
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuantizeBenchmark {
+    @Param({"10", "20", "30", "32"})
+    public int times;
+
+    private double[] lats;
+    private int[] bits;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lats = BenchmarkData.generate(BenchmarkData.RANDOM, BenchmarkData.SIZE).lats();
+        bits = new int[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            bits[i] = GeoHash.quantize(GeoHash.MIN_LAT, GeoHash.MAX_LAT, lats[i], times);
+        }
+    }
+
+    private int next() {
+        return cursor++ & BenchmarkData.MASK;
+    }
+
+    @Benchmark
+    public int quantize() {
+        return GeoHash.quantize(GeoHash.MIN_LAT, GeoHash.MAX_LAT, lats[next()], times);
+    }
+
+    @Benchmark
+    public int quantizeBinarySearch() {
+        return GeoHash.binarySearch(GeoHash.MIN_LAT, GeoHash.MAX_LAT, lats[next()], times);
+    }
+
+    @Benchmark
+    public double dequantize() {
+        return GeoHash.dequantize(GeoHash.MIN_LAT, GeoHash.MAX_LAT, bits[next()], times);
+    }
+
+    @Benchmark
+    public double dequantizeBinarySearch() {
+        return GeoHash.binarySearch(GeoHash.MIN_LAT, GeoHash.MAX_LAT, bits[next()], times);
+    }
+}
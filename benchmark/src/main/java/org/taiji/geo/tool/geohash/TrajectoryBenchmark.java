@@ -0,0 +1,76 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轨迹编码与逐点编码的对比
+ * 轨迹为每秒一个定位点, 约10米/秒的平滑曲线; 分数以单个定位点为一次操作
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+    @Param({"base32:7", "base32:8"})
+    public String precision;
+
+    private GeoHash geoHash;
+    private TrajectoryEncoder encoder;
+    private TrajectoryEncoder.Trajectory trajectory;
+    private double[] lats;
+    private double[] lngs;
+    private long[] bits;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        geoHash = BenchmarkData.geoHash(precision);
+        encoder = new TrajectoryEncoder(geoHash);
+        lats = new double[BenchmarkData.SIZE];
+        lngs = new double[BenchmarkData.SIZE];
+        lats[0] = 22.5431;
+        lngs[0] = 114.0579;
+        for (int i = 1; i < BenchmarkData.SIZE; i++) {
+            lats[i] = lats[i - 1] + 0.00009 * Math.sin(i / 500d);
+            lngs[i] = lngs[i - 1] + 0.00009 * Math.cos(i / 700d);
+        }
+        bits = new long[BenchmarkData.SIZE];
+        trajectory = encoder.encode(lats, lngs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public long[] toBitsBatch() {
+        geoHash.toBits(lats, lngs, bits);
+        return bits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public TrajectoryEncoder.Trajectory encode() {
+        return encoder.encode(lats, lngs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public byte[] toBytes() {
+        return trajectory.toBytes();
+    }
+}
@@ -0,0 +1,80 @@
+package org.taiji.geo.tool.geohash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SIMD批量编码与标量批量编码的对比
+ * 需要以 -P vector 打包并在JDK 17+上运行, 否则{@link BatchCodec#of(GeoHash)}回退为标量实现
+ *
+ * @author tim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorBatchBenchmark {
+    @Param({"base16:16", "base32:12"})
+    public String precision;
+
+    @Param({"scalar", "default"})
+    public String codec;
+
+    private BatchCodec batchCodec;
+    private double[] lats;
+    private double[] lngs;
+    private long[] bits;
+    private char[] chars;
+    private double[] latsOut;
+    private double[] lngsOut;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GeoHash geoHash = BenchmarkData.geoHash(precision);
+        batchCodec = "scalar".equals(codec) ? BatchCodec.scalar(geoHash) : BatchCodec.of(geoHash);
+        BenchmarkData data = BenchmarkData.generate(BenchmarkData.RANDOM, BenchmarkData.SIZE);
+        lats = data.lats();
+        lngs = data.lngs();
+        bits = new long[BenchmarkData.SIZE];
+        chars = new char[BenchmarkData.SIZE * geoHash.getLength()];
+        latsOut = new double[BenchmarkData.SIZE];
+        lngsOut = new double[BenchmarkData.SIZE];
+        geoHash.toBits(lats, lngs, bits);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public long[] toBits() {
+        batchCodec.toBits(lats, lngs, bits);
+        return bits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public char[] encode() {
+        batchCodec.encode(lats, lngs, chars);
+        return chars;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SIZE)
+    public double[] decode() {
+        batchCodec.decode(bits, latsOut, lngsOut);
+        return latsOut;
+    }
+}
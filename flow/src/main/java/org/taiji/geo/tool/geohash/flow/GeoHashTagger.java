@@ -0,0 +1,173 @@
+package org.taiji.geo.tool.geohash.flow;
+
+import org.taiji.geo.tool.geohash.BatchCodec;
+import org.taiji.geo.tool.geohash.GeoHash;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 给记录打geohash标签的{@link Flow.Processor}
+ * 每次向上游请求batch条记录, 收满一批后用{@link BatchCodec}整批编码, 再逐条发布给下游,
+ * 编码用的列式缓冲区在批之间复用
+ * <p>
+ * 下游的缓冲区满时{@link SubmissionPublisher#submit(Object)}阻塞上游线程, 当前批发布完之前不会再向上游请求,
+ * 因此在途记录数不超过batch与下游缓冲区容量之和
+ * 上游完成时, 未满的最后一批先编码发布, 再向下游传递完成; 上游出错时丢弃未发布的记录, 立即向下游传递错误
+ * <p>
+ * 曾有订阅者而下游订阅者已全部取消时, 在下一条记录到达或当前批发布完时取消上游订阅, 丢弃未发布的记录并关闭;
+ * {@link SubmissionPublisher}没有取消的回调, 上游不再发送记录时无法察觉
+ *
+ * @param <T> 记录类型
+ * @author tim
+ */
+public class GeoHashTagger<T> extends SubmissionPublisher<Tagged<T>> implements Flow.Processor<T, Tagged<T>> {
+    /**
+     * 默认的批大小
+     */
+    public static final int DEFAULT_BATCH = 256;
+
+    private final GeoHash geoHash;
+    private final BatchCodec codec;
+    private final ToDoubleFunction<? super T> lat;
+    private final ToDoubleFunction<? super T> lng;
+    private final int batch;
+
+    private final Object[] records;
+    private final double[] lats;
+    private final double[] lngs;
+    private final long[] bits;
+    private int size;
+
+    private Flow.Subscription subscription;
+    private volatile boolean subscribed;
+
+    /**
+     * 使用公共ForkJoinPool向下游发布, 默认批大小和下游缓冲区
+     *
+     * @param geoHash 编码精度, 如Base32.getBase32(8)
+     * @param lat     记录的纬度
+     * @param lng     记录的经度
+     */
+    public GeoHashTagger(GeoHash geoHash, ToDoubleFunction<? super T> lat, ToDoubleFunction<? super T> lng) {
+        this(geoHash, lat, lng, DEFAULT_BATCH, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param geoHash           编码精度
+     * @param lat               记录的纬度
+     * @param lng               记录的经度
+     * @param batch             批大小, 即每次向上游请求的记录数
+     * @param executor          向下游发布的线程池
+     * @param maxBufferCapacity 每个下游订阅者的缓冲区容量
+     */
+    public GeoHashTagger(GeoHash geoHash, ToDoubleFunction<? super T> lat, ToDoubleFunction<? super T> lng,
+                         int batch, Executor executor, int maxBufferCapacity) {
+        super(executor, maxBufferCapacity);
+        if (batch <= 0) {
+            throw new InvalidParameterException("batch expected to be positive, " + batch + " found.");
+        }
+        this.geoHash = geoHash;
+        this.codec = BatchCodec.of(geoHash);
+        this.lat = lat;
+        this.lng = lng;
+        this.batch = batch;
+        this.records = new Object[batch];
+        this.lats = new double[batch];
+        this.lngs = new double[batch];
+        this.bits = new long[batch];
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Tagged<T>> subscriber) {
+        super.subscribe(subscriber);
+        subscribed = true;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(batch);
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (isClosed() || abandoned()) {
+            cancel();
+            return;
+        }
+        records[size] = item;
+        lats[size] = lat.applyAsDouble(item);
+        lngs[size] = lng.applyAsDouble(item);
+        size++;
+        if (size == batch) {
+            flush();
+            if (abandoned()) {
+                cancel();
+                return;
+            }
+            subscription.request(batch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        discard();
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        flush();
+        close();
+    }
+
+    /**
+     * 曾有订阅者, 且都已取消
+     */
+    private boolean abandoned() {
+        return subscribed && getNumberOfSubscribers() == 0;
+    }
+
+    private void cancel() {
+        subscription.cancel();
+        discard();
+        close();
+    }
+
+    private void discard() {
+        for (int i = 0; i < size; i++) {
+            records[i] = null;
+        }
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flush() {
+        if (size == 0) {
+            return;
+        }
+        if (size == batch) {
+            codec.toBits(lats, lngs, bits);
+        } else {
+            geoHash.toBits(lats, lngs, bits, 0, size);
+        }
+        for (int i = 0; i < size; i++) {
+            submit(new Tagged<>((T) records[i], bits[i], geoHash));
+            records[i] = null;
+        }
+        size = 0;
+    }
+}
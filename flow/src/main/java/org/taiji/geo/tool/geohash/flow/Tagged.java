@@ -0,0 +1,50 @@
+package org.taiji.geo.tool.geohash.flow;
+
+import org.taiji.geo.tool.geohash.GeoHash;
+
+/**
+ * 带geohash标签的记录
+ *
+ * @param <T> 记录类型
+ * @author tim
+ */
+public final class Tagged<T> {
+    private final T record;
+    private final long bits;
+    private final GeoHash geoHash;
+
+    Tagged(T record, long bits, GeoHash geoHash) {
+        this.record = record;
+        this.bits = bits;
+        this.geoHash = geoHash;
+    }
+
+    public T getRecord() {
+        return record;
+    }
+
+    /**
+     * @return 记录位置的比特串
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    /**
+     * 记录位置的hash串, 调用时才生成
+     *
+     * @return String
+     */
+    public String getHash() {
+        return geoHash.toHash(bits);
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    @Override
+    public String toString() {
+        return getHash() + ":" + record;
+    }
+}
@@ -0,0 +1,148 @@
+package org.taiji.geo.tool.geohash.flow;
+
+import org.junit.Test;
+import org.taiji.geo.tool.geohash.Base32;
+import org.taiji.geo.tool.geohash.GeoHash;
+import org.taiji.geo.tool.geohash.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GeoHashTaggerTest {
+    private static final int SIZE = 10000;
+
+    @Test
+    public void testTag() throws Exception {
+        GeoHash geoHash = Base32.getBase32(8);
+        Random random = new Random(SIZE);
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            positions.add(new Position(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        GeoHashTagger<Position> tagger = new GeoHashTagger<>(geoHash, Position::getLat, Position::getLng,
+            100, ForkJoinPool.commonPool(), 16);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        tagger.subscribe(subscriber);
+        try (SubmissionPublisher<Position> source = new SubmissionPublisher<>()) {
+            source.subscribe(tagger);
+            for (Position position : positions) {
+                source.submit(position);
+            }
+        }
+        subscriber.done.get(30, TimeUnit.SECONDS);
+
+        assertEquals(SIZE, subscriber.received.size());
+        for (int i = 0; i < SIZE; i++) {
+            Tagged<Position> tagged = subscriber.received.get(i);
+            assertSame(positions.get(i), tagged.getRecord());
+            assertEquals(geoHash.encode(positions.get(i)), tagged.getHash());
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        GeoHashTagger<Position> tagger = new GeoHashTagger<>(Base32.getBase32(8), Position::getLat, Position::getLng);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        tagger.subscribe(subscriber);
+        SubmissionPublisher<Position> source = new SubmissionPublisher<>();
+        source.subscribe(tagger);
+        source.submit(new Position(31.2, 121.4));
+        source.closeExceptionally(new IllegalStateException("upstream"));
+        try {
+            subscriber.done.get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(subscriber.received.isEmpty());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        GeoHashTagger<Position> tagger = new GeoHashTagger<>(Base32.getBase32(8), Position::getLat, Position::getLng,
+            10, ForkJoinPool.commonPool(), 16);
+        CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        tagger.subscribe(new Flow.Subscriber<Tagged<Position>>() {
+            private Flow.Subscription subscription;
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Tagged<Position> item) {
+                if (++received == 5) {
+                    subscription.cancel();
+                    cancelled.complete(null);
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        // 下游全部取消后, 上游的订阅也被取消
+        try (SubmissionPublisher<Position> source = new SubmissionPublisher<>()) {
+            source.subscribe(tagger);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (source.getNumberOfSubscribers() > 0 && System.nanoTime() < deadline) {
+                source.offer(new Position(31.2, 121.4), null);
+                Thread.sleep(1);
+            }
+            assertTrue(cancelled.isDone());
+            assertEquals(0, source.getNumberOfSubscribers());
+            assertTrue(tagger.isClosed());
+        }
+    }
+
+    /**
+     * 每次只请求一条的慢速订阅者, 上游需要等待下游的需求
+     */
+    private static final class SlowSubscriber implements Flow.Subscriber<Tagged<Position>> {
+        final List<Tagged<Position>> received = new ArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Tagged<Position> item) {
+            received.add(item);
+            if (received.size() % 1000 == 0) {
+                Thread.yield();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.taiji.geo.tool.geohash;
 
-import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -28,6 +27,8 @@ public class Base16 extends GeoHash {
         'h', // 1111 -> h
     };
 
+    private static final byte[] codes = decodeTable(chars);
+
     private Base16(int length) {
         super(length, CHAR_BIT_LEN);
     }
@@ -39,7 +40,7 @@ public class Base16 extends GeoHash {
 
     @Override
     protected byte charDecode(char c) {
-        return (byte) Arrays.binarySearch(chars, c);
+        return c < codes.length ? codes[c] : -1;
     }
 
     @Override
@@ -47,6 +48,11 @@ public class Base16 extends GeoHash {
         return chars;
     }
 
+    @Override
+    public Base16 withLength(int length) {
+        return getBase16(length);
+    }
+
     public static int minimalHashLenByDistance(double distance) {
         int bitLen = minimalBitLenByDistance(distance);
         return bitLen / CHAR_BIT_LEN;
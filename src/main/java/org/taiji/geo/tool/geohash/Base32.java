@@ -1,6 +1,5 @@
 package org.taiji.geo.tool.geohash;
 
-import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -44,6 +43,8 @@ public class Base32 extends GeoHash {
         'z', // 11111 -> z
     };
 
+    private static final byte[] codes = decodeTable(chars);
+
     private Base32(int length) {
         super(length, CHAR_BIT_LEN);
     }
@@ -55,7 +56,7 @@ public class Base32 extends GeoHash {
 
     @Override
     protected byte charDecode(char c) {
-        return (byte) Arrays.binarySearch(chars, c);
+        return c < codes.length ? codes[c] : -1;
     }
 
     @Override
@@ -63,6 +64,11 @@ public class Base32 extends GeoHash {
         return chars;
     }
 
+    @Override
+    public Base32 withLength(int length) {
+        return getBase32(length);
+    }
+
     public static int minimalHashLenByDistance(double distance) {
         int bitLen = minimalBitLenByDistance(distance);
         return bitLen / CHAR_BIT_LEN;
@@ -1,6 +1,5 @@
 package org.taiji.geo.tool.geohash;
 
-import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,6 +15,8 @@ public class Base4 extends GeoHash{
         '3', // 0011 -> 3
     };
 
+    private static final byte[] codes = decodeTable(chars);
+
     private Base4(int length) {
         super(length, CHAR_BIT_LEN);
     }
@@ -27,7 +28,7 @@ public class Base4 extends GeoHash{
 
     @Override
     protected byte charDecode(char c) {
-        return (byte) Arrays.binarySearch(chars, c);
+        return c < codes.length ? codes[c] : -1;
     }
 
     @Override
@@ -35,6 +36,11 @@ public class Base4 extends GeoHash{
         return chars;
     }
 
+    @Override
+    public Base4 withLength(int length) {
+        return getBase4(length);
+    }
+
     public static int minimalHashLenByDistance(double distance) {
         int bitLen = minimalBitLenByDistance(distance);
         return bitLen / CHAR_BIT_LEN;
@@ -0,0 +1,74 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * 列式批量编码/解码
+ * 默认实现直接调用{@link GeoHash}的批量方法
+ * classpath中存在geohash-vector模块且运行环境支持时, {@link #of(GeoHash)}返回SIMD实现
+ *
+ * @author tim
+ * @see BatchCodecFactory
+ */
+public interface BatchCodec {
+    /**
+     * 编码精度
+     *
+     * @return {@link GeoHash}
+     */
+    GeoHash getGeoHash();
+
+    /**
+     * 批量把经纬度转换成比特串
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的比特串数组
+     * @see GeoHash#toBits(double[], double[], long[])
+     */
+    void toBits(double[] lats, double[] lngs, long[] out);
+
+    /**
+     * 批量对经纬度Hash编码
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出字符数组, 长度至少为 lats.length * length
+     * @see GeoHash#encode(double[], double[], char[])
+     */
+    void encode(double[] lats, double[] lngs, char[] out);
+
+    /**
+     * 批量对比特串解码, 输出方块中心的经纬度
+     *
+     * @param bits    比特串数组
+     * @param latsOut 输出的纬度数组
+     * @param lngsOut 输出的经度数组
+     * @see GeoHash#decode(long[], double[], double[])
+     */
+    void decode(long[] bits, double[] latsOut, double[] lngsOut);
+
+    /**
+     * 获取当前环境下最快的实现
+     * 依次尝试通过ServiceLoader发现的{@link BatchCodecFactory}, 都不可用时返回标量实现
+     *
+     * @param geoHash 编码精度
+     * @return BatchCodec
+     */
+    static BatchCodec of(GeoHash geoHash) {
+        for (BatchCodecFactory factory : BatchCodecFactories.FACTORIES) {
+            if (factory.isSupported(geoHash)) {
+                return factory.create(geoHash);
+            }
+        }
+        return scalar(geoHash);
+    }
+
+    /**
+     * 标量实现
+     *
+     * @param geoHash 编码精度
+     * @return BatchCodec
+     */
+    static BatchCodec scalar(GeoHash geoHash) {
+        return new ScalarBatchCodec(geoHash);
+    }
+}
@@ -0,0 +1,42 @@
+package org.taiji.geo.tool.geohash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 加载{@link BatchCodecFactory}
+ * 扩展模块缺失或无法链接(如未开启jdk.incubator.vector)时忽略, 回退到标量实现
+ *
+ * @author tim
+ */
+final class BatchCodecFactories {
+    static final List<BatchCodecFactory> FACTORIES = load();
+
+    private BatchCodecFactories() {
+    }
+
+    private static List<BatchCodecFactory> load() {
+        List<BatchCodecFactory> factories = new ArrayList<>();
+        Iterator<BatchCodecFactory> iterator = ServiceLoader.load(BatchCodecFactory.class).iterator();
+        while (hasNext(iterator)) {
+            try {
+                factories.add(iterator.next());
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // 跳过不可用的实现
+            }
+        }
+        return Collections.unmodifiableList(factories);
+    }
+
+    private static boolean hasNext(Iterator<BatchCodecFactory> iterator) {
+        try {
+            return iterator.hasNext();
+        } catch (ServiceConfigurationError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * {@link BatchCodec}的扩展点
+ * 实现类通过META-INF/services/org.taiji.geo.tool.geohash.BatchCodecFactory注册
+ *
+ * @author tim
+ */
+public interface BatchCodecFactory {
+    /**
+     * 当前运行环境和编码精度是否可用
+     *
+     * @param geoHash 编码精度
+     * @return boolean
+     */
+    boolean isSupported(GeoHash geoHash);
+
+    /**
+     * @param geoHash 编码精度
+     * @return BatchCodec
+     */
+    BatchCodec create(GeoHash geoHash);
+}
@@ -0,0 +1,142 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+
+/**
+ * 经纬度矩形, 不可变
+ * 用于表示geohash块的精确范围, 相交和包含的判断只需比较, 可以在计算距离前廉价地排除候选
+ * 不跨越180°经线, 跨越时用{@link Region#rectangle(double, double, double, double)}
+ *
+ * @author tim
+ */
+public final class BoundingBox implements Region {
+    private final double minLat;
+    private final double maxLat;
+    private final double minLng;
+    private final double maxLng;
+
+    /**
+     * @param minLat 最小纬度
+     * @param maxLat 最大纬度
+     * @param minLng 最小经度
+     * @param maxLng 最大经度
+     */
+    public BoundingBox(double minLat, double maxLat, double minLng, double maxLng) {
+        if (!(minLat <= maxLat) || !(minLng <= maxLng)) {
+            throw new InvalidParameterException("box expected to be min <= max, ["
+                + minLat + ", " + maxLat + "] x [" + minLng + ", " + maxLng + "] found.");
+        }
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLng = minLng;
+        this.maxLng = maxLng;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMinLng() {
+        return minLng;
+    }
+
+    public double getMaxLng() {
+        return maxLng;
+    }
+
+    public double getCenterLat() {
+        return (minLat + maxLat) / 2;
+    }
+
+    public double getCenterLng() {
+        return (minLng + maxLng) / 2;
+    }
+
+    /**
+     * 纬度跨度, 单位: 度
+     */
+    public double getLatSpan() {
+        return maxLat - minLat;
+    }
+
+    /**
+     * 经度跨度, 单位: 度
+     */
+    public double getLngSpan() {
+        return maxLng - minLng;
+    }
+
+    /**
+     * 点是否在矩形内, 包括边界
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return boolean
+     */
+    public boolean contains(double lat, double lng) {
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    public boolean contains(BoundingBox box) {
+        return box.minLat >= minLat && box.maxLat <= maxLat && box.minLng >= minLng && box.maxLng <= maxLng;
+    }
+
+    /**
+     * 两个矩形是否相交, 只有边界接触也视为相交
+     *
+     * @param box 另一个矩形
+     * @return boolean
+     */
+    public boolean intersects(BoundingBox box) {
+        return box.minLat <= maxLat && box.maxLat >= minLat && box.minLng <= maxLng && box.maxLng >= minLng;
+    }
+
+    @Override
+    public boolean contains(double[] box) {
+        return box[0] >= minLat && box[1] <= maxLat && box[2] >= minLng && box[3] <= maxLng;
+    }
+
+    @Override
+    public boolean intersects(double[] box) {
+        return box[0] <= maxLat && box[1] >= minLat && box[2] <= maxLng && box[3] >= minLng;
+    }
+
+    /**
+     * 转换成数组形式: 最小纬度, 最大纬度, 最小经度, 最大经度
+     *
+     * @return double[]
+     */
+    public double[] toArray() {
+        return new double[]{minLat, maxLat, minLng, maxLng};
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoundingBox)) {
+            return false;
+        }
+        BoundingBox box = (BoundingBox) o;
+        return Double.compare(minLat, box.minLat) == 0 && Double.compare(maxLat, box.maxLat) == 0
+            && Double.compare(minLng, box.minLng) == 0 && Double.compare(maxLng, box.maxLng) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(minLat);
+        hash = hash * 31 + Double.hashCode(maxLat);
+        hash = hash * 31 + Double.hashCode(minLng);
+        return hash * 31 + Double.hashCode(maxLng);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + minLat + ", " + maxLat + "] x [" + minLng + ", " + maxLng + "]";
+    }
+}
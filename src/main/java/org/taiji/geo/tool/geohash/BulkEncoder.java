@@ -0,0 +1,260 @@
+package org.taiji.geo.tool.geohash;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.security.InvalidParameterException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 大批量坐标的并行geohash编码
+ * 把列式的经纬度数组按grain切分, 交给ForkJoinPool并行执行{@link GeoHash#toBits(double[], double[], long[], int, int)}
+ * <p>
+ * 按并行度创建的编码器自带线程池, 用完需要{@link #close()}; 传入的线程池由调用方管理, close不会关闭
+ *
+ * @author tim
+ */
+public class BulkEncoder implements AutoCloseable {
+    /**
+     * 默认的最小切分粒度
+     */
+    public static final int DEFAULT_GRAIN = 1 << 12;
+
+    private final GeoHash geoHash;
+    private final ForkJoinPool pool;
+    private final int grain;
+    private final boolean ownsPool;
+
+    /**
+     * 使用公共ForkJoinPool和默认粒度
+     *
+     * @param geoHash 编码精度, 如{@link Base32#getBase32(int)}
+     */
+    public BulkEncoder(GeoHash geoHash) {
+        this(geoHash, ForkJoinPool.commonPool(), DEFAULT_GRAIN, false);
+    }
+
+    /**
+     * 使用指定并行度的独立ForkJoinPool, 用完需要{@link #close()}
+     *
+     * @param geoHash     编码精度
+     * @param parallelism 并行度
+     * @param grain       最小切分粒度, 每个任务至少处理的坐标数
+     */
+    public BulkEncoder(GeoHash geoHash, int parallelism, int grain) {
+        this(geoHash, newPool(parallelism, grain), grain, true);
+    }
+
+    /**
+     * @param geoHash 编码精度
+     * @param pool    执行编码的线程池
+     * @param grain   最小切分粒度, 每个任务至少处理的坐标数
+     */
+    public BulkEncoder(GeoHash geoHash, ForkJoinPool pool, int grain) {
+        this(geoHash, pool, grain, false);
+    }
+
+    private BulkEncoder(GeoHash geoHash, ForkJoinPool pool, int grain, boolean ownsPool) {
+        this.geoHash = geoHash;
+        this.pool = pool;
+        this.grain = checkGrain(grain);
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * 先校验粒度再创建线程池, 参数非法时不会留下未关闭的线程池
+     */
+    private static ForkJoinPool newPool(int parallelism, int grain) {
+        checkGrain(grain);
+        return new ForkJoinPool(parallelism);
+    }
+
+    private static int checkGrain(int grain) {
+        if (grain <= 0) {
+            throw new InvalidParameterException("grain expected to be positive, " + grain + " found.");
+        }
+        return grain;
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    public int getGrain() {
+        return grain;
+    }
+
+    /**
+     * 并行把经纬度转换成比特串
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的比特串数组
+     */
+    public void toBits(double[] lats, double[] lngs, long[] out) {
+        if (lngs.length != lats.length || out.length < lats.length) {
+            throw new InvalidParameterException("array length mismatch: " + lats.length + ", " + lngs.length + ", " + out.length);
+        }
+        pool.invoke(new ArrayTask(lats, lngs, out, 0, lats.length));
+    }
+
+    /**
+     * 并行把经纬度转换成比特串
+     * 按绝对下标读写, 不改变缓冲区的position, 可用于堆外或内存映射的缓冲区
+     *
+     * @param lats 纬度缓冲区
+     * @param lngs 经度缓冲区
+     * @param out  输出的比特串缓冲区
+     */
+    public void toBits(DoubleBuffer lats, DoubleBuffer lngs, LongBuffer out) {
+        int size = lats.remaining();
+        if (lngs.remaining() != size || out.remaining() < size) {
+            throw new InvalidParameterException("buffer length mismatch: " + size + ", " + lngs.remaining() + ", " + out.remaining());
+        }
+        pool.invoke(new BufferTask(lats, lngs, out, 0, size));
+    }
+
+    /**
+     * 比特串的流, 元素不装箱
+     * 并行流按grain切分
+     *
+     * @param lats     纬度数组
+     * @param lngs     经度数组
+     * @param parallel 是否并行
+     * @return LongStream
+     */
+    public LongStream stream(double[] lats, double[] lngs, boolean parallel) {
+        if (lngs.length != lats.length) {
+            throw new InvalidParameterException("array length mismatch: " + lats.length + ", " + lngs.length);
+        }
+        return StreamSupport.longStream(new BitsSpliterator(lats, lngs, 0, lats.length), parallel);
+    }
+
+    /**
+     * 关闭自带的线程池, 传入的线程池不受影响
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    private class ArrayTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] lats;
+        private final double[] lngs;
+        private final long[] out;
+        private final int from;
+        private final int to;
+
+        ArrayTask(double[] lats, double[] lngs, long[] out, int from, int to) {
+            this.lats = lats;
+            this.lngs = lngs;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                geoHash.toBits(lats, lngs, out, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ArrayTask(lats, lngs, out, from, mid), new ArrayTask(lats, lngs, out, mid, to));
+        }
+    }
+
+    private class BufferTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DoubleBuffer lats;
+        private final DoubleBuffer lngs;
+        private final LongBuffer out;
+        private final int from;
+        private final int to;
+
+        BufferTask(DoubleBuffer lats, DoubleBuffer lngs, LongBuffer out, int from, int to) {
+            this.lats = lats;
+            this.lngs = lngs;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                int latBase = lats.position();
+                int lngBase = lngs.position();
+                int outBase = out.position();
+                for (int i = from; i < to; i++) {
+                    out.put(outBase + i, geoHash.toBits(lats.get(latBase + i), lngs.get(lngBase + i)));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BufferTask(lats, lngs, out, from, mid), new BufferTask(lats, lngs, out, mid, to));
+        }
+    }
+
+    private class BitsSpliterator implements Spliterator.OfLong {
+        private final double[] lats;
+        private final double[] lngs;
+        private int from;
+        private final int to;
+
+        BitsSpliterator(double[] lats, double[] lngs, int from, int to) {
+            this.lats = lats;
+            this.lngs = lngs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public OfLong trySplit() {
+            if (to - from <= grain) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            BitsSpliterator prefix = new BitsSpliterator(lats, lngs, from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(geoHash.toBits(lats[from], lngs[from]));
+            from++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            for (int i = from; i < to; i++) {
+                action.accept(geoHash.toBits(lats[i], lngs[i]));
+            }
+            from = to;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带缓存的geohash解码, 包装一个{@link GeoHash}, 按hash串缓存解码结果, 方块边界和邻近块
+ * 适用于访问集中在少量热点块的场景, 访问分布均匀时直接使用{@link GeoHash}即可
+ * <p>
+ * 缓存按hash串分段, 每段独立加锁并按{@link Policy}淘汰, 总条目数不超过容量
+ * 返回的{@link Position}和{@link Neibor}都是新对象, 调用方修改不会影响缓存
+ *
+ * @author tim
+ */
+public class CachingGeoHash {
+    /**
+     * 淘汰策略
+     */
+    public enum Policy {
+        /**
+         * 淘汰最久未访问的条目
+         */
+        LRU,
+        /**
+         * 淘汰访问次数最少的条目, 次数相同时淘汰最久未访问的
+         */
+        LFU
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * 每个分段至少容纳的条目数, 容量较小时分段更少, 淘汰更接近全局的策略
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final GeoHash geoHash;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param geoHash  编码
+     * @param capacity 缓存的hash串数量上限
+     * @param policy   淘汰策略
+     */
+    public CachingGeoHash(GeoHash geoHash, int capacity, Policy policy) {
+        if (capacity <= 0) {
+            throw new InvalidParameterException("capacity expected to be positive, " + capacity + " found.");
+        }
+        this.geoHash = geoHash;
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_CAPACITY)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // 余数分给前几个段, 保证各段容量之和等于capacity
+            int segmentCapacity = capacity / count + (i < capacity % count ? 1 : 0);
+            segments[i] = policy == Policy.LRU ? new LruSegment(segmentCapacity) : new LfuSegment(segmentCapacity);
+        }
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    /**
+     * 对hash串解码, 同{@link GeoHash#decode(String)}
+     *
+     * @param hash hash串
+     * @return Position 位置
+     */
+    public Position decode(String hash) {
+        CachedEntry entry = entry(hash);
+        return new Position(entry.lat, entry.lng);
+    }
+
+    /**
+     * 方块的边界, 同{@link GeoHash#decodeBox(long, double[])}
+     *
+     * @param hash hash串
+     * @param box  长度至少为4, 依次写入最小纬度, 最大纬度, 最小经度, 最大经度
+     */
+    public void decodeBox(String hash, double[] box) {
+        BoundingBox bounds = entry(hash).bounds;
+        box[0] = bounds.getMinLat();
+        box[1] = bounds.getMaxLat();
+        box[2] = bounds.getMinLng();
+        box[3] = bounds.getMaxLng();
+    }
+
+    /**
+     * 方块的范围, 同{@link GeoHash#decodeBounds(String)}
+     * {@link BoundingBox}不可变, 直接返回缓存的对象
+     *
+     * @param hash hash串
+     * @return {@link BoundingBox}
+     */
+    public BoundingBox decodeBounds(String hash) {
+        return entry(hash).bounds;
+    }
+
+    /**
+     * 邻近块, 同{@link GeoHash#getNeibor(String)}
+     *
+     * @param hash 中心hash串
+     * @return {@link Neibor}
+     */
+    public Neibor getNeibor(String hash) {
+        CachedEntry entry = entry(hash);
+        Neibor neibor = entry.neibor;
+        if (neibor == null) {
+            // 邻近块只在首次需要时计算, 并发时可能重复计算, 结果相同
+            neibor = geoHash.getNeibor(hash);
+            entry.neibor = neibor;
+        }
+        Neibor copy = new Neibor(neibor.getCenter());
+        copy.setNorthwest(neibor.getNorthwest());
+        copy.setNorth(neibor.getNorth());
+        copy.setNortheast(neibor.getNortheast());
+        copy.setWest(neibor.getWest());
+        copy.setEast(neibor.getEast());
+        copy.setSouthwest(neibor.getSouthwest());
+        copy.setSouth(neibor.getSouth());
+        copy.setSoutheast(neibor.getSoutheast());
+        return copy;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 当前缓存的条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 清空缓存和计数
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    private CachedEntry entry(String hash) {
+        int h = hash.hashCode();
+        Segment segment = segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+        CachedEntry entry;
+        synchronized (segment) {
+            entry = segment.get(hash);
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        // 在锁外解码, 非法hash串的异常直接抛出, 不进入缓存
+        long bits = geoHash.toBits(hash);
+        entry = new CachedEntry(geoHash.decodeLat(bits), geoHash.decodeLng(bits), geoHash.decodeBounds(bits));
+        synchronized (segment) {
+            CachedEntry raced = segment.get(hash);
+            if (raced != null) {
+                return raced;
+            }
+            segment.put(hash, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 一个hash串的缓存结果
+     */
+    private static final class CachedEntry {
+        final double lat;
+        final double lng;
+        final BoundingBox bounds;
+        volatile Neibor neibor;
+
+        CachedEntry(double lat, double lng, BoundingBox bounds) {
+            this.lat = lat;
+            this.lng = lng;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * 缓存分段, 调用方持有分段的锁
+     */
+    private interface Segment {
+        CachedEntry get(String hash);
+
+        void put(String hash, CachedEntry entry);
+
+        int size();
+
+        void clear();
+    }
+
+    private static final class LruSegment implements Segment {
+        private final LinkedHashMap<String, CachedEntry> map;
+
+        LruSegment(int capacity) {
+            this.map = new LinkedHashMap<String, CachedEntry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        @Override
+        public CachedEntry get(String hash) {
+            return map.get(hash);
+        }
+
+        @Override
+        public void put(String hash, CachedEntry entry) {
+            map.put(hash, entry);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    /**
+     * O(1)的LFU: 相同访问次数的节点串成一个按访问时间排列的链表, 各次数的链表再按次数递增串联
+     */
+    private static final class LfuSegment implements Segment {
+        private final int capacity;
+        private final HashMap<String, Node> nodes = new HashMap<>();
+        /**
+         * 访问次数最少的链表
+         */
+        private Frequency lowest;
+
+        LfuSegment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public CachedEntry get(String hash) {
+            Node node = nodes.get(hash);
+            if (node == null) {
+                return null;
+            }
+            Frequency frequency = node.frequency;
+            Frequency next = frequency.next;
+            if (next == null || next.count != frequency.count + 1) {
+                next = new Frequency(frequency.count + 1);
+                insertAfter(frequency, next);
+            }
+            unlink(node);
+            link(next, node);
+            return node.entry;
+        }
+
+        @Override
+        public void put(String hash, CachedEntry entry) {
+            if (nodes.size() >= capacity) {
+                Node eldest = lowest.head;
+                unlink(eldest);
+                nodes.remove(eldest.hash);
+            }
+            if (lowest == null || lowest.count != 1) {
+                Frequency first = new Frequency(1);
+                first.next = lowest;
+                if (lowest != null) {
+                    lowest.prev = first;
+                }
+                lowest = first;
+            }
+            Node node = new Node(hash, entry);
+            link(lowest, node);
+            nodes.put(hash, node);
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+
+        @Override
+        public void clear() {
+            nodes.clear();
+            lowest = null;
+        }
+
+        private static void insertAfter(Frequency frequency, Frequency next) {
+            next.prev = frequency;
+            next.next = frequency.next;
+            if (frequency.next != null) {
+                frequency.next.prev = next;
+            }
+            frequency.next = next;
+        }
+
+        private static void link(Frequency frequency, Node node) {
+            node.frequency = frequency;
+            node.prev = frequency.tail;
+            node.next = null;
+            if (frequency.tail == null) {
+                frequency.head = node;
+            } else {
+                frequency.tail.next = node;
+            }
+            frequency.tail = node;
+        }
+
+        /**
+         * 把节点移出所在链表, 链表为空时一并移除
+         */
+        private void unlink(Node node) {
+            Frequency frequency = node.frequency;
+            if (node.prev == null) {
+                frequency.head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                frequency.tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            if (frequency.head == null) {
+                if (frequency.prev == null) {
+                    lowest = frequency.next;
+                } else {
+                    frequency.prev.next = frequency.next;
+                }
+                if (frequency.next != null) {
+                    frequency.next.prev = frequency.prev;
+                }
+            }
+        }
+
+        private static final class Frequency {
+            final int count;
+            Frequency prev;
+            Frequency next;
+            Node head;
+            Node tail;
+
+            Frequency(int count) {
+                this.count = count;
+            }
+        }
+
+        private static final class Node {
+            final String hash;
+            final CachedEntry entry;
+            Frequency frequency;
+            Node prev;
+            Node next;
+
+            Node(String hash, CachedEntry entry) {
+                this.hash = hash;
+                this.entry = entry;
+            }
+        }
+    }
+}
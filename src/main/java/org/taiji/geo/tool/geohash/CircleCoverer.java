@@ -0,0 +1,297 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.Math.*;
+
+/**
+ * 圆形区域的geohash覆盖
+ * 给定圆心和半径, 计算覆盖该圆的geohash块集合, 用于半径检索时减少需要扫描的块
+ * <p>
+ * 从粗粒度的块开始逐级细分: 与圆不相交的块直接剔除, 完全落在圆内的块不再细分,
+ * 与圆边界相交的块细分到最大长度, 或在超出块数上限时停止细分
+ * 最小长度等于最大长度时, 输出单一精度的块
+ *
+ * @author tim
+ */
+public class CircleCoverer {
+    /**
+     * 起始层级上外接矩形至多覆盖的块数
+     */
+    private static final int START_CELLS = 16;
+
+    private final GeoHash geoHash;
+    private final int minLength;
+    private final int maxLength;
+    private final int maxCells;
+
+    /**
+     * 单一精度的覆盖
+     *
+     * @param geoHash 输出块的编码精度
+     */
+    public CircleCoverer(GeoHash geoHash) {
+        this(geoHash, geoHash.getLength(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 混合精度的覆盖
+     *
+     * @param geoHash   最大编码精度, 与圆边界相交的块最多细分到该长度
+     * @param minLength 输出块的最小长度
+     * @param maxCells  输出块数上限, 只约束minLength之后的细分, 达到上限时以较粗的块输出
+     */
+    public CircleCoverer(GeoHash geoHash, int minLength, int maxCells) {
+        if (minLength <= 0 || minLength > geoHash.getLength()) {
+            throw new InvalidParameterException("minLength expected to be in (0, " + geoHash.getLength() + "], " + minLength + " found.");
+        }
+        if (maxCells <= 0) {
+            throw new InvalidParameterException("maxCells expected to be positive, " + maxCells + " found.");
+        }
+        this.geoHash = geoHash;
+        this.minLength = minLength;
+        this.maxLength = geoHash.getLength();
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * 适合指定半径的混合精度覆盖
+     * 最细的块高度小于半径, 最粗的块比其短一个字符, 用于在以geoHash为键的有序存储中检索
+     *
+     * @param geoHash  存储键的编码精度, 覆盖块不会比它更细
+     * @param radius   半径, 单位: 米
+     * @param maxCells 覆盖块数上限
+     * @return CircleCoverer
+     */
+    static CircleCoverer forRadius(GeoHash geoHash, double radius, int maxCells) {
+        int length = 1;
+        for (int l = 1; l <= geoHash.getLength(); l++) {
+            double latCell = (GeoHash.MAX_LAT - GeoHash.MIN_LAT) / pow(2, geoHash.withLength(l).getLatBitsLength());
+            length = l;
+            if (toRadians(latCell) * GeoCalculator.EARTH_DIAMETER < radius) {
+                break;
+            }
+        }
+        return new CircleCoverer(geoHash.withLength(length), max(1, length - 1), maxCells);
+    }
+
+    /**
+     * 计算覆盖圆形区域的geohash块
+     *
+     * @param center 圆心
+     * @param radius 半径, 单位: 米
+     * @return 按字典序排列的hash串
+     */
+    public List<String> cover(Position center, double radius) {
+        List<Cell> cells = coverCells(center.getLat(), center.getLng(), radius);
+        List<String> hashes = new ArrayList<>(cells.size());
+        for (Cell cell : cells) {
+            hashes.add(geoHash.withLength(cell.length).toHash(cell.bits));
+        }
+        Collections.sort(hashes);
+        return hashes;
+    }
+
+    /**
+     * 计算覆盖圆形区域的geohash块
+     *
+     * @param lat    圆心纬度
+     * @param lng    圆心经度
+     * @param radius 半径, 单位: 米
+     * @return 块列表
+     */
+    List<Cell> coverCells(double lat, double lng, double radius) {
+        int length = startLength(lat, radius);
+        List<Cell> result = new ArrayList<>();
+        List<Cell> current = startCells(lat, lng, radius, length);
+        double[] box = new double[4];
+        for (; !current.isEmpty(); length++) {
+            GeoHash level = geoHash.withLength(length);
+            List<Cell> refine = new ArrayList<>();
+            for (Cell cell : current) {
+                level.decodeBox(cell.bits, box);
+                if (length == maxLength || (length >= minLength && maxDistance(lat, lng, box) <= radius)) {
+                    result.add(cell);
+                } else {
+                    refine.add(cell);
+                }
+            }
+            if (length == maxLength) {
+                break;
+            }
+            GeoHash child = geoHash.withLength(length + 1);
+            List<Cell> next = new ArrayList<>();
+            List<Cell> children = new ArrayList<>();
+            for (int i = 0; i < refine.size(); i++) {
+                Cell cell = refine.get(i);
+                children.clear();
+                children(child, cell, lat, lng, radius, box, children);
+                int pending = refine.size() - i - 1;
+                if (length >= minLength && result.size() + next.size() + children.size() + pending > maxCells) {
+                    result.add(cell);
+                } else {
+                    next.addAll(children);
+                }
+            }
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * 与圆相交的子块
+     */
+    private static void children(GeoHash child, Cell cell, double lat, double lng, double radius, double[] box, List<Cell> out) {
+        int charLen = child.getCharBitsLength();
+        for (long c = 0; c < (1L << charLen); c++) {
+            long bits = (cell.bits << charLen) | c;
+            child.decodeBox(bits, box);
+            if (minDistance(lat, lng, box) <= radius) {
+                out.add(new Cell(bits, cell.length + 1));
+            }
+        }
+    }
+
+    /**
+     * 起始层级: 不超过minLength, 且圆的外接矩形覆盖的块数不超过{@link #START_CELLS}的最大长度
+     */
+    private int startLength(double lat, double radius) {
+        double[] bounds = bounds(lat, 0, radius);
+        double latSpan = bounds[1] - bounds[0];
+        double lngSpan = bounds[3] - bounds[2];
+        for (int length = minLength; length > 1; length--) {
+            GeoHash level = geoHash.withLength(length);
+            double latCells = latSpan / ((GeoHash.MAX_LAT - GeoHash.MIN_LAT) / pow(2, level.getLatBitsLength())) + 2;
+            double lngCells = lngSpan / ((GeoHash.MAX_LNG - GeoHash.MIN_LNG) / pow(2, level.getLngBitsLength())) + 2;
+            if (latCells * lngCells <= START_CELLS) {
+                return length;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 起始层级上与圆相交的块
+     * 按外接矩形枚举网格, 两侧各多取一格以抵消浮点误差, 再按距离剔除
+     */
+    private List<Cell> startCells(double lat, double lng, double radius, int length) {
+        GeoHash level = geoHash.withLength(length);
+        int latTimes = level.getLatBitsLength();
+        int lngTimes = level.getLngBitsLength();
+        double latCell = (GeoHash.MAX_LAT - GeoHash.MIN_LAT) / pow(2, latTimes);
+        double lngCell = (GeoHash.MAX_LNG - GeoHash.MIN_LNG) / pow(2, lngTimes);
+        double[] bounds = bounds(lat, lng, radius);
+        long latFrom = max(0, (long) floor((bounds[0] - GeoHash.MIN_LAT) / latCell) - 1);
+        long latTo = min((1L << latTimes) - 1, (long) floor((bounds[1] - GeoHash.MIN_LAT) / latCell) + 1);
+        long lngFrom = (long) floor((bounds[2] - GeoHash.MIN_LNG) / lngCell) - 1;
+        long lngTo = (long) floor((bounds[3] - GeoHash.MIN_LNG) / lngCell) + 1;
+        long lngMask = (1L << lngTimes) - 1;
+        if (lngTo - lngFrom >= lngMask) {
+            lngFrom = 0;
+            lngTo = lngMask;
+        }
+        List<Cell> cells = new ArrayList<>();
+        double[] box = new double[4];
+        for (long y = latFrom; y <= latTo; y++) {
+            for (long x = lngFrom; x <= lngTo; x++) {
+                long bits = level.compact((int) (x & lngMask), (int) y);
+                level.decodeBox(bits, box);
+                if (minDistance(lat, lng, box) <= radius) {
+                    cells.add(new Cell(bits, length));
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * 圆的外接经纬度矩形, 经度可能超出[-180, 180], 包含极点时经度取全范围
+     *
+     * @return 最小纬度, 最大纬度, 最小经度, 最大经度
+     */
+    static double[] bounds(double lat, double lng, double radius) {
+        double angular = radius / GeoCalculator.EARTH_DIAMETER;
+        double latDelta = toDegrees(angular);
+        double minLat = lat - latDelta;
+        double maxLat = lat + latDelta;
+        if (minLat <= GeoHash.MIN_LAT || maxLat >= GeoHash.MAX_LAT || angular >= PI / 2) {
+            return new double[]{max(minLat, GeoHash.MIN_LAT), min(maxLat, GeoHash.MAX_LAT), GeoHash.MIN_LNG, GeoHash.MAX_LNG};
+        }
+        double ratio = sin(angular) / cos(toRadians(lat));
+        if (ratio >= 1) {
+            return new double[]{minLat, maxLat, GeoHash.MIN_LNG, GeoHash.MAX_LNG};
+        }
+        double lngDelta = toDegrees(asin(ratio));
+        return new double[]{minLat, maxLat, lng - lngDelta, lng + lngDelta};
+    }
+
+    /**
+     * 点到经纬度矩形的最短大圆距离
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @param box 最小纬度, 最大纬度, 最小经度, 最大经度
+     * @return 距离, 单位: 米
+     */
+    static double minDistance(double lat, double lng, double[] box) {
+        if (lng >= box[2] && lng <= box[3]) {
+            // 经度在矩形内, 最近点在同一经线上
+            if (lat >= box[0] && lat <= box[1]) {
+                return 0;
+            }
+            return GeoCalculator.harvesineDistance(lat, lng, max(box[0], min(box[1], lat)), lng);
+        }
+        return min(meridianDistance(lat, lng, box[2], box[0], box[1]),
+            meridianDistance(lat, lng, box[3], box[0], box[1]));
+    }
+
+    /**
+     * 点到经纬度矩形的最长大圆距离
+     * 到任一点的距离等于半周长减去对映点到该点的距离, 最远点就是离对映点最近的点;
+     * 对映点的经线穿过矩形时最远点落在边上而不是角点, 因此与四个角点的最大值比较后取较大者
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @param box 最小纬度, 最大纬度, 最小经度, 最大经度
+     * @return 距离, 单位: 米
+     */
+    static double maxDistance(double lat, double lng, double[] box) {
+        double corners = max(max(GeoCalculator.harvesineDistance(lat, lng, box[0], box[2]), GeoCalculator.harvesineDistance(lat, lng, box[0], box[3])),
+            max(GeoCalculator.harvesineDistance(lat, lng, box[1], box[2]), GeoCalculator.harvesineDistance(lat, lng, box[1], box[3])));
+        double antipode = PI * GeoCalculator.EARTH_DIAMETER - minDistance(-lat, lng < 0 ? lng + 180 : lng - 180, box);
+        return max(corners, antipode);
+    }
+
+    /**
+     * 点到一段经线的最短距离
+     * 垂足落在线段内时取垂直距离(cross-track distance), 否则取较近的端点
+     */
+    private static double meridianDistance(double lat, double lng, double meridian, double minLat, double maxLat) {
+        double dl = toRadians(meridian - lng);
+        double φ = toRadians(lat);
+        if (cos(dl) > 0) {
+            double foot = toDegrees(atan2(sin(φ), cos(φ) * cos(dl)));
+            if (foot >= minLat && foot <= maxLat) {
+                return GeoCalculator.EARTH_DIAMETER * asin(min(1, abs(cos(φ) * sin(dl))));
+            }
+        }
+        return min(GeoCalculator.harvesineDistance(lat, lng, minLat, meridian),
+            GeoCalculator.harvesineDistance(lat, lng, maxLat, meridian));
+    }
+
+    /**
+     * 指定长度的geohash块
+     */
+    static final class Cell {
+        final long bits;
+        final int length;
+
+        Cell(long bits, int length) {
+            this.bits = bits;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+
+import static java.lang.Math.*;
+
+/**
+ * 折线加密
+ * 把每条线段按不超过步长的等间距切分, 依次输出顶点和中间点; 结果通过回调输出, 不产生逐点对象
+ * 中间点由正算得到: 球面模型同{@link GeoCalculator#pointsAt(double, double, double[], double[], double[], double[])},
+ * 椭球体模型同{@link VincentySolver#destinations(double, double[], double[], double[])}
+ *
+ * @author tim
+ */
+public final class Densifier {
+    private Densifier() {
+    }
+
+    /**
+     * 球面模型加密
+     *
+     * @param lats     顶点纬度
+     * @param lngs     顶点经度
+     * @param step     步长, 单位: 米
+     * @param consumer 接收输出的点
+     * @return 输出的点数
+     */
+    public static int densify(double[] lats, double[] lngs, double step, PointConsumer consumer) {
+        checkStep(lats, lngs, step);
+        double[] point = new double[2];
+        int count = 0;
+        for (int i = 0; i < lats.length - 1; i++) {
+            consumer.accept(i, lats[i], lngs[i]);
+            count++;
+            double distance = GeoCalculator.harvesineDistance(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+            int pieces = (int) ceil(distance / step);
+            if (pieces < 2) {
+                continue;
+            }
+            double φ1 = toRadians(lats[i]);
+            double λ1 = toRadians(lngs[i]);
+            double sinφ1 = sin(φ1);
+            double cosφ1 = cos(φ1);
+            double θ = toRadians(GeoCalculator.bearing(lats[i], lngs[i], lats[i + 1], lngs[i + 1]));
+            double sinθ = sin(θ);
+            double cosθ = cos(θ);
+            for (int k = 1; k < pieces; k++) {
+                GeoCalculator.pointAt(λ1, sinφ1, cosφ1, sinθ, cosθ, distance * k / pieces / GeoCalculator.EARTH_DIAMETER, point);
+                consumer.accept(i, point[0], point[1]);
+            }
+            count += pieces - 1;
+        }
+        return count + last(lats, lngs, consumer);
+    }
+
+    /**
+     * WGS84椭球体模型加密, 线段长度和方位角由Vincenty反算得到
+     *
+     * @param lats     顶点纬度
+     * @param lngs     顶点经度
+     * @param step     步长, 单位: 米
+     * @param consumer 接收输出的点
+     * @return 输出的点数
+     */
+    public static int densifyEllipsoidal(double[] lats, double[] lngs, double step, PointConsumer consumer) {
+        checkStep(lats, lngs, step);
+        double[] bearings = new double[2];
+        double[] point = new double[2];
+        int count = 0;
+        for (int i = 0; i < lats.length - 1; i++) {
+            consumer.accept(i, lats[i], lngs[i]);
+            count++;
+            VincentySolver solver = new VincentySolver(lats[i], lngs[i]);
+            double distance = solver.inverse(lats[i + 1], lngs[i + 1], bearings);
+            int pieces = (int) ceil(distance / step);
+            if (pieces < 2) {
+                continue;
+            }
+            VincentySolver.Ray ray = solver.ray(bearings[0]);
+            for (int k = 1; k < pieces; k++) {
+                ray.destination(distance * k / pieces, point);
+                consumer.accept(i, point[0], point[1]);
+            }
+            count += pieces - 1;
+        }
+        return count + last(lats, lngs, consumer);
+    }
+
+    private static int last(double[] lats, double[] lngs, PointConsumer consumer) {
+        if (lats.length == 0) {
+            return 0;
+        }
+        consumer.accept(lats.length - 1, lats[lats.length - 1], lngs[lngs.length - 1]);
+        return 1;
+    }
+
+    private static void checkStep(double[] lats, double[] lngs, double step) {
+        GeoCalculator.checkBatch(lats.length, lngs.length, lats.length);
+        if (!(step > 0)) {
+            throw new InvalidParameterException("step expected to be positive, " + step + " found.");
+        }
+    }
+
+    /**
+     * 接收加密后的点
+     */
+    public interface PointConsumer {
+        /**
+         * @param index 所在线段起点的下标, 最后一个顶点为其自身下标
+         * @param lat   纬度
+         * @param lng   经度
+         */
+        void accept(int index, double lat, double lng);
+    }
+}
@@ -1,5 +1,8 @@
 package org.taiji.geo.tool.geohash;
 
+import java.security.InvalidParameterException;
+import java.util.BitSet;
+
 import static java.lang.Math.*;
 
 /**
@@ -11,7 +14,7 @@ import static java.lang.Math.*;
  */
 @SuppressWarnings("unused")
 public class GeoCalculator {
-    private static final double EARTH_DIAMETER = 6370.99681 * 1000; //meters
+    static final double EARTH_DIAMETER = 6370.99681 * 1000; //meters
 
     /**
      * 大圆上两点之间的中点
@@ -83,13 +86,27 @@ public class GeoCalculator {
      * @return The distance, in meters
      */
     public static double harvesineDistance(Position standPosition, Position forePosition) {
+        return harvesineDistance(standPosition.getLat(), standPosition.getLng(), forePosition.getLat(), forePosition.getLng());
+    }
 
-        double diffLongitudes = toRadians(abs(forePosition.getLng() - standPosition.getLng()));
-        double slat = toRadians(standPosition.getLat());
-        double flat = toRadians(forePosition.getLat());
+    /**
+     * 大圆距离,harvesine公式求算距离(半正矢解法)
+     * {@link #harvesineDistance(Position, Position)}的原始类型版本, 不产生临时对象
+     *
+     * @param standLat The stand point latitude
+     * @param standLng The stand point longitude
+     * @param foreLat  The fore point latitude
+     * @param foreLng  The fore point longitude
+     * @return The distance, in meters
+     */
+    public static double harvesineDistance(double standLat, double standLng, double foreLat, double foreLng) {
+
+        double diffLongitudes = toRadians(abs(foreLng - standLng));
+        double slat = toRadians(standLat);
+        double flat = toRadians(foreLat);
 
         // haversine formula
-        double diffLatitudes = toRadians(abs(forePosition.getLat() - standPosition.getLat()));
+        double diffLatitudes = toRadians(abs(foreLat - standLat));
         double a = sin(diffLatitudes / 2) * sin(diffLatitudes / 2) + cos(slat) * cos(flat) * sin(diffLongitudes / 2) * sin(diffLongitudes / 2);
         double c = 2 * atan2(sqrt(a), sqrt(1 - a)); //angular distance in radians
 
@@ -97,84 +114,164 @@ public class GeoCalculator {
     }
 
     /**
-     * Vincenty算法,椭球体两点距离(假定地球为椭球体)
-     * 通过迭代方式计算地理距离
-     * 精度高,计算效率低
+     * 等距圆柱投影近似距离, 把两点投影到以平均纬度为标准纬线的平面上求直线距离
+     * 只需一次cos和一次sqrt, 适合短距离; 与{@link #harvesineDistance(double, double, double, double)}的相对误差约为(d/R)²·tan²φ/20:
+     * 纬度70°以内, 10km内小于1e-6, 100km内小于1e-4; 纬度80°以内, 100km内小于5e-4; 跨越180°经线时经度差自动回绕
      *
-     * @param standPosition The stand point
-     * @param forePosition  The fore point
-     * @return Vincenty object which holds all 3 values
+     * @param standLat The stand point latitude
+     * @param standLng The stand point longitude
+     * @param foreLat  The fore point latitude
+     * @param foreLng  The fore point longitude
+     * @return The distance, in meters
+     * @see PreparedOrigin
      */
-    private static Vincenty vincenty(Position standPosition, Position forePosition) {
-        double λ1 = toRadians(standPosition.getLng());
-        double λ2 = toRadians(forePosition.getLng());
-
-        double φ1 = toRadians(standPosition.getLat());
-        double φ2 = toRadians(forePosition.getLat());
+    public static double equirectangularDistance(double standLat, double standLng, double foreLat, double foreLng) {
+        double x = toRadians(wrapLng(foreLng - standLng)) * cos(toRadians((standLat + foreLat) / 2));
+        double y = toRadians(foreLat - standLat);
+        return EARTH_DIAMETER * sqrt(x * x + y * y);
+    }
 
-        double a = 6_378_137;
-        double b = 6_356_752.314245;
-        double f = 1 / 298.257223563;
-
-        double L = λ2 - λ1;
-        double tanU1 = (1 - f) * tan(φ1), cosU1 = 1 / sqrt((1 + tanU1 * tanU1)), sinU1 = tanU1 * cosU1;
-        double tanU2 = (1 - f) * tan(φ2), cosU2 = 1 / sqrt((1 + tanU2 * tanU2)), sinU2 = tanU2 * cosU2;
-
-        double λ = L, λʹ, iterationLimit = 100, cosSqα, σ, cos2σM, cosσ, sinσ, sinλ, cosλ;
-        do {
-            sinλ = sin(λ);
-            cosλ = cos(λ);
-            double sinSqσ = (cosU2 * sinλ) * (cosU2 * sinλ) + (cosU1 * sinU2 - sinU1 * cosU2 * cosλ) * (cosU1 * sinU2 - sinU1 * cosU2 * cosλ);
-            sinσ = sqrt(sinSqσ);
-            if (sinσ == 0) {
-                return new Vincenty(0, 0, 0);  // co-incident points
-            }
-            cosσ = sinU1 * sinU2 + cosU1 * cosU2 * cosλ;
-            σ = atan2(sinσ, cosσ);
-            double sinα = cosU1 * cosU2 * sinλ / sinσ;
-            cosSqα = 1 - sinα * sinα;
-            cos2σM = cosσ - 2 * sinU1 * sinU2 / cosSqα;
-
-            if (Double.isNaN(cos2σM)) {
-                cos2σM = 0;  // equatorial line: cosSqα=0 (§6)
-            }
-            double C = f / 16 * cosSqα * (4 + f * (4 - 3 * cosSqα));
-            λʹ = λ;
-            λ = L + (1 - C) * f * sinα * (σ + C * sinσ * (cos2σM + C * cosσ * (-1 + 2 * cos2σM * cos2σM)));
-        } while (abs(λ - λʹ) > 1e-12 && --iterationLimit > 0);
+    /**
+     * 批量计算原点到各点的harvesine距离
+     * 原点的三角函数只计算一次, 循环内不产生临时对象, 结果与{@link #harvesineDistance(double, double, double, double)}逐个相同
+     *
+     * @param lat0 原点纬度
+     * @param lng0 原点经度
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的距离, 单位: 米
+     */
+    public static void harvesineDistances(double lat0, double lng0, double[] lats, double[] lngs, double[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        double cos0 = cos(toRadians(lat0));
+        for (int i = 0; i < lats.length; i++) {
+            double sinLat = sin(toRadians(abs(lats[i] - lat0)) / 2);
+            double sinLng = sin(toRadians(abs(lngs[i] - lng0)) / 2);
+            double a = sinLat * sinLat + cos0 * cos(toRadians(lats[i])) * sinLng * sinLng;
+            out[i] = EARTH_DIAMETER * (2 * atan2(sqrt(a), sqrt(1 - a)));
+        }
+    }
 
-        if (iterationLimit == 0) {
-            throw new IllegalStateException("Formula failed to converge");
+    /**
+     * 批量计算原点到各点的球面余弦距离, 结果与{@link #gcdDistance(Position, Position)}逐个相同
+     *
+     * @param lat0 原点纬度
+     * @param lng0 原点经度
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的距离, 单位: 米
+     */
+    public static void gcdDistances(double lat0, double lng0, double[] lats, double[] lngs, double[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        double sin0 = sin(toRadians(lat0));
+        double cos0 = cos(toRadians(lat0));
+        for (int i = 0; i < lats.length; i++) {
+            double flat = toRadians(lats[i]);
+            double sphereCos = (sin0 * sin(flat)) + (cos0 * cos(flat) * cos(toRadians(abs(lngs[i] - lng0))));
+            out[i] = EARTH_DIAMETER * acos(max(min(sphereCos, 1d), -1d));
         }
+    }
 
-        double uSq = cosSqα * (a * a - b * b) / (b * b);
-        double A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
-        double B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
-        double Δσ = B * sinσ * (cos2σM + B / 4 * (cosσ * (-1 + 2 * cos2σM * cos2σM) -
-            B / 6 * cos2σM * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σM * cos2σM)));
+    /**
+     * 批量计算原点到各点的方位角, 结果与{@link #bearing(Position, Position)}逐个相同
+     *
+     * @param lat0 原点纬度
+     * @param lng0 原点经度
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的方位角, 单位: 度, 正北为0, 顺时针
+     */
+    public static void bearings(double lat0, double lng0, double[] lats, double[] lngs, double[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        double sin0 = sin(toRadians(lat0));
+        double cos0 = cos(toRadians(lat0));
+        for (int i = 0; i < lats.length; i++) {
+            double diffLng = toRadians(lngs[i] - lng0);
+            double flat = toRadians(lats[i]);
+            double cosLat = cos(flat);
+            double y = sin(diffLng) * cosLat;
+            double x = cos0 * sin(flat) - sin0 * cosLat * cos(diffLng);
+            out[i] = toDegrees((atan2(y, x) + 2 * PI) % (2 * PI));
+        }
+    }
 
-        double distance = b * A * (σ - Δσ);
+    /**
+     * 批量判断各点是否在圆内, 判定与harvesine距离比较一致, 见{@link PreparedOrigin#within(double, double, double)}
+     *
+     * @param lat0   圆心纬度
+     * @param lng0   圆心经度
+     * @param lats   纬度数组
+     * @param lngs   经度数组
+     * @param radius 半径, 单位: 米
+     * @param out    圆内点的下标对应的位被置1, 其余位不变
+     * @return 圆内点的个数
+     */
+    public static int withinRadius(double lat0, double lng0, double[] lats, double[] lngs, double radius, BitSet out) {
+        checkBatch(lats.length, lngs.length, lats.length);
+        PreparedOrigin origin = new PreparedOrigin(lat0, lng0);
+        int count = 0;
+        for (int i = 0; i < lats.length; i++) {
+            if (origin.within(lats[i], lngs[i], radius)) {
+                out.set(i);
+                count++;
+            }
+        }
+        return count;
+    }
 
-        double initialBearing = atan2(cosU2 * sinλ, cosU1 * sinU2 - sinU1 * cosU2 * cosλ);
-        initialBearing = (initialBearing + 2 * PI) % (2 * PI); //turning value to trigonometric direction
+    /**
+     * 批量判断各点是否在圆内, 依次写出圆内点的下标
+     *
+     * @param lat0   圆心纬度
+     * @param lng0   圆心经度
+     * @param lats   纬度数组
+     * @param lngs   经度数组
+     * @param radius 半径, 单位: 米
+     * @param out    输出的下标, 长度不小于点数
+     * @return 圆内点的个数, 即out中有效下标的个数
+     */
+    public static int withinRadius(double lat0, double lng0, double[] lats, double[] lngs, double radius, int[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        PreparedOrigin origin = new PreparedOrigin(lat0, lng0);
+        int count = 0;
+        for (int i = 0; i < lats.length; i++) {
+            if (origin.within(lats[i], lngs[i], radius)) {
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
 
-        double finalBearing = atan2(cosU1 * sinλ, -sinU1 * cosU2 + cosU1 * sinU2 * cosλ);
-        finalBearing = (finalBearing + 2 * PI) % (2 * PI);  //turning value to trigonometric direction
+    static void checkBatch(int latLen, int lngLen, int outLen) {
+        if (lngLen != latLen || outLen < latLen) {
+            throw new InvalidParameterException("array length mismatch: " + latLen + ", " + lngLen + ", " + outLen);
+        }
+    }
 
-        return new Vincenty(distance, toDegrees(initialBearing), toDegrees(finalBearing));
+    /**
+     * 把经度差回绕到[-180, 180]
+     */
+    static double wrapLng(double diff) {
+        if (diff > 180) {
+            return diff - 360;
+        }
+        if (diff < -180) {
+            return diff + 360;
+        }
+        return diff;
     }
 
     /**
      * Vincenty算法,椭球体两点距离(假定地球为椭球体)
      * 通过迭代方式计算地理距离
-     * 精度高,计算效率低
+     * 精度高,计算效率低; 同一起点反复计算时使用{@link VincentySolver}
      *
      * @param standPosition 起点
      * @param forePosition  终点
      * @return Vincenty距离
      */
     public static double vincentyDistance(Position standPosition, Position forePosition) {
-        return vincenty(standPosition, forePosition).distance;
+        return new VincentySolver(standPosition.getLat(), standPosition.getLng()).distance(forePosition.getLat(), forePosition.getLng());
     }
 
     /**
@@ -186,7 +283,9 @@ public class GeoCalculator {
      * @see <a href="http://www.movable-type.co.uk/scripts/latlong.html"></a>
      */
     public static double vincentyBearing(Position standPosition, Position forePosition) {
-        return vincenty(standPosition, forePosition).initialBearing;
+        double[] bearings = new double[2];
+        new VincentySolver(standPosition.getLat(), standPosition.getLng()).inverse(forePosition.getLat(), forePosition.getLng(), bearings);
+        return bearings[0];
     }
 
     /**
@@ -198,7 +297,9 @@ public class GeoCalculator {
      * @see <a href="http://www.movable-type.co.uk/scripts/latlong.html"></a>
      */
     public static double vincentyFinalBearing(Position standPosition, Position forePosition) {
-        return vincenty(standPosition, forePosition).finalBearing;
+        double[] bearings = new double[2];
+        new VincentySolver(standPosition.getLat(), standPosition.getLng()).inverse(forePosition.getLat(), forePosition.getLng(), bearings);
+        return bearings[1];
     }
 
     /**
@@ -239,6 +340,52 @@ public class GeoCalculator {
         return new Position(Math.toDegrees(φ2), Math.toDegrees(λ2_harmonised));
     }
 
+    /**
+     * 批量计算从原点出发沿各方位角前进各距离后的点(球面模型), 结果与{@link #pointAt(Position, double, double)}逐个相同
+     * 原点的三角函数只计算一次, 结果写入基本类型数组, 不产生Position对象
+     *
+     * @param lat0      原点纬度
+     * @param lng0      原点经度
+     * @param bearings  方位角数组, 单位: 度, 正北为0, 顺时针
+     * @param distances 距离数组, 单位: 米
+     * @param outLats   输出的纬度
+     * @param outLngs   输出的经度, 在[-180, 180)内
+     */
+    public static void pointsAt(double lat0, double lng0, double[] bearings, double[] distances, double[] outLats, double[] outLngs) {
+        checkBatch(bearings.length, distances.length, min(outLats.length, outLngs.length));
+        double φ1 = toRadians(lat0);
+        double λ1 = toRadians(lng0);
+        double sinφ1 = sin(φ1);
+        double cosφ1 = cos(φ1);
+        double[] point = new double[2];
+        for (int i = 0; i < bearings.length; i++) {
+            double θ = toRadians(bearings[i]);
+            pointAt(λ1, sinφ1, cosφ1, sin(θ), cos(θ), distances[i] / EARTH_DIAMETER, point);
+            outLats[i] = point[0];
+            outLngs[i] = point[1];
+        }
+    }
+
+    /**
+     * 球面正算, 原点纬度和方位角的三角函数由调用方预先计算
+     *
+     * @param λ1    原点经度, 单位: 弧度
+     * @param sinφ1 原点纬度的sin
+     * @param cosφ1 原点纬度的cos
+     * @param sinθ  方位角的sin
+     * @param cosθ  方位角的cos
+     * @param δ     角距离, 即距离除以地球半径
+     * @param point 输出{纬度, 经度}, 经度在[-180, 180)内
+     */
+    static void pointAt(double λ1, double sinφ1, double cosφ1, double sinθ, double cosθ, double δ, double[] point) {
+        double sinδ = sin(δ);
+        double cosδ = cos(δ);
+        double φ2 = asin(sinφ1 * cosδ + cosφ1 * sinδ * cosθ);
+        double λ2 = λ1 + atan2(sinθ * sinδ * cosφ1, cosδ - sinφ1 * sin(φ2));
+        point[0] = Math.toDegrees(φ2);
+        point[1] = Math.toDegrees((λ2 + 3 * PI) % (2 * PI) - PI);
+    }
+
     /**
      * Returns the (azimuth) bearing, in decimal degrees, from standPosition to forePosition
      *
@@ -247,31 +394,29 @@ public class GeoCalculator {
      * @return (azimuth) bearing, in decimal degrees
      */
     public static double bearing(Position standPosition, Position forePosition) {
+        return bearing(standPosition.getLat(), standPosition.getLng(), forePosition.getLat(), forePosition.getLng());
+    }
+
+    /**
+     * Returns the (azimuth) bearing, in decimal degrees, from stand point to fore point
+     *
+     * @param standLat The stand point latitude
+     * @param standLng The stand point longitude
+     * @param foreLat  The fore point latitude
+     * @param foreLng  The fore point longitude
+     * @return (azimuth) bearing, in decimal degrees
+     */
+    public static double bearing(double standLat, double standLng, double foreLat, double foreLng) {
         /**
          * Formula: θ = atan2( 	sin(Δlong).cos(lat2), cos(lat1).sin(lat2) − sin(lat1).cos(lat2).cos(Δlong) )
          */
 
-        double y = sin(toRadians(forePosition.getLng() - standPosition.getLng())) * cos(toRadians(forePosition.getLat()));
-        double x = cos(toRadians(standPosition.getLat())) * sin(toRadians(forePosition.getLat()))
-            - sin(toRadians(standPosition.getLat())) * cos(toRadians(forePosition.getLat())) * cos(toRadians(forePosition.getLng() - standPosition.getLng()));
+        double y = sin(toRadians(foreLng - standLng)) * cos(toRadians(foreLat));
+        double x = cos(toRadians(standLat)) * sin(toRadians(foreLat))
+            - sin(toRadians(standLat)) * cos(toRadians(foreLat)) * cos(toRadians(foreLng - standLng));
 
         double bearing = (atan2(y, x) + 2 * PI) % (2 * PI);
 
         return toDegrees(bearing);
     }
-
-    private static class Vincenty {
-        /**
-         * distance is the distance in meter
-         * initialBearing is the initial bearing, or forward azimuth (in reference to North point), in degrees
-         * finalBearing is the final bearing (in direction p1→p2), in degrees
-         */
-        final double distance, initialBearing, finalBearing;
-
-        public Vincenty(double distance, double initialBearing, double finalBearing) {
-            this.distance = distance;
-            this.initialBearing = initialBearing;
-            this.finalBearing = finalBearing;
-        }
-    }
 }
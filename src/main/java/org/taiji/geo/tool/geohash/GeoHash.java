@@ -1,6 +1,11 @@
 package org.taiji.geo.tool.geohash;
 
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
+import java.util.Arrays;
 
 /**
  * geohash编码
@@ -62,13 +67,29 @@ public abstract class GeoHash {
 
     /**
      * 字符解码
-     * 每个字符用一个字节表示
+     * 每个字符用一个字节表示, 不区分大小写
      *
      * @param c 输入字符
-     * @return byte
+     * @return byte 不在字符集中时返回-1
      */
     abstract protected byte charDecode(char c);
 
+    /**
+     * 生成ASCII字符到编码值的反查表, 字母的大小写都能解码
+     *
+     * @param chars 编码字符集
+     * @return byte[] 长度128, 不在字符集中的字符为-1
+     */
+    protected static byte[] decodeTable(char[] chars) {
+        byte[] codes = new byte[128];
+        Arrays.fill(codes, (byte) -1);
+        for (int i = 0; i < chars.length; i++) {
+            codes[Character.toLowerCase(chars[i])] = (byte) i;
+            codes[Character.toUpperCase(chars[i])] = (byte) i;
+        }
+        return codes;
+    }
+
     /**
      * 编码字符集
      *
@@ -77,21 +98,28 @@ public abstract class GeoHash {
     abstract public char[] charSet();
 
     /**
-     * @param bits 输入的长比特串
-     * @return byte[]
-     * @see #charLen
-     * 将一个长比特串按charLen切分比特串的数组
+     * 相同字符集, 指定长度的编码
+     *
+     * @param length 编码长度
+     * @return GeoHash
+     */
+    abstract public GeoHash withLength(int length);
+
+    /**
+     * 将一个长比特串按charLen切分, 逐个字符编码后写入字符数组
      * 长比特串用long表示
-     * 每个短比特串用byte表示
+     *
+     * @param bits   输入的长比特串
+     * @param out    输出字符数组
+     * @param offset 写入的起始位置
+     * @see #charLen
      */
-    private byte[] split(long bits) {
-        byte[] bytes = new byte[length];
-        int prefix = MAX_BITS - length * charLen;
-        int suffix = MAX_BITS - charLen;
-        for (int i = 0; i < length; i++) {
-            bytes[i] = (byte) ((bits << (prefix + i * charLen)) >>> suffix);
+    private void write(long bits, char[] out, int offset) {
+        int mask = (1 << charLen) - 1;
+        for (int i = length - 1; i >= 0; i--) {
+            out[offset + i] = charEncode((byte) (bits & mask));
+            bits >>>= charLen;
         }
-        return bytes;
     }
 
     /**
@@ -102,12 +130,9 @@ public abstract class GeoHash {
      * @return String
      */
     private String hash(long bits) {
-        byte[] bytes = split(bits);
-        StringBuilder builder = new StringBuilder();
-        for (byte b : bytes) {
-            builder.append(charEncode(b));
-        }
-        return builder.toString();
+        char[] chars = new char[length];
+        write(bits, chars, 0);
+        return new String(chars);
     }
 
     /**
@@ -119,47 +144,22 @@ public abstract class GeoHash {
      * @return long
      */
     final protected long compact(int even, int odd) {
-        long eL = (long) even;
-        long oL = (long) odd;
-        long e = 0;
-        long o = 0;
-        for (int i = 0; i < 32; i++) {
-            e |= (eL << (i + 32) >>> 63) << (63 - i * 2);
-            o |= (oL << (i + 32) >>> 63) << (62 - i * 2);
-        }
         if (lngSearchTimes > latSearchTimes) {
-            e >>= 1;
-            o <<= 1;
+            return Morton.spread(even) | (Morton.spread(odd) << 1);
         }
-        return e | o;
+        return (Morton.spread(even) << 1) | Morton.spread(odd);
     }
 
     /**
      * 将geohash编码按奇偶分组分成两个比特串, 都用整型表示
+     * 短于{@link #getLength()}的编码视为前缀, 见{@link #toBits(CharSequence)}
      *
      * @param hash 输入的geohash编码
      * @return int[] 第0位表示纬度, 第1位表示经度
      */
     final protected int[] separate(String hash) {
-        int latBits = 0;
-        int lngBits = 0;
-        char[] chars = hash.toCharArray();
-        for (int i = 0; i < chars.length; i++) {
-            byte b = (byte) ((charDecode(chars[i]) << (8 - charLen)) >> (8 - charLen));
-            for (int j = 0; j < 8; j++) {
-                int bit = b << (j + 24) >>> 31;
-                if (bit == 0) {
-                    continue;
-                }
-                int k = i * charLen + j - (8 - charLen);
-                if (k % 2 == 0) {
-                    lngBits |= 1 << lngSearchTimes - k / 2 - 1;
-                } else {
-                    latBits |= 1 << latSearchTimes - (k - 1) / 2 - 1;
-                }
-            }
-        }
-        return new int[]{latBits, lngBits};
+        long bits = toBits(hash);
+        return new int[]{latBits(bits), lngBits(bits)};
     }
 
     /**
@@ -170,7 +170,9 @@ public abstract class GeoHash {
      * @return long 比特串
      */
     final public long toBits(double lat, double lng) {
-        return toBits(new Position(lat, lng));
+        int latBits = quantize(MIN_LAT, MAX_LAT, lat, latSearchTimes);
+        int lngBits = quantize(MIN_LNG, MAX_LNG, lng, lngSearchTimes);
+        return compact(lngBits, latBits);
     }
 
     /**
@@ -180,9 +182,158 @@ public abstract class GeoHash {
      * @return long 比特串
      */
     final public long toBits(Position position) {
-        int latBits = binarySearch(MIN_LAT, MAX_LAT, position.getLat(), latSearchTimes);
-        int lngBits = binarySearch(MIN_LNG, MAX_LNG, position.getLng(), lngSearchTimes);
-        return compact(lngBits, latBits);
+        return toBits(position.getLat(), position.getLng());
+    }
+
+    /**
+     * 把hash串转换成比特串, 不产生临时对象, 不区分大小写
+     * 短于{@link #getLength()}的hash串视为前缀, 比特串左对齐, 低位补0, 即前缀块内左下角的块
+     *
+     * @param hash hash串
+     * @return long 比特串
+     * @throws InvalidParameterException 长度不在[1, {@link #getLength()}]内, 或含有字符集以外的字符
+     */
+    final public long toBits(CharSequence hash) {
+        if (hash.length() == 0 || hash.length() > length) {
+            throw new InvalidParameterException("hash length expected to be in [1, " + length + "], " + hash.length() + " found.");
+        }
+        long bits = 0;
+        for (int i = 0; i < hash.length(); i++) {
+            bits = (bits << charLen) | checkCode(charDecode(hash.charAt(i)), hash.charAt(i), i);
+        }
+        return bits << (length - hash.length()) * charLen;
+    }
+
+    /**
+     * 直接从ASCII字节读取hash串并转换成比特串, 如网络缓冲区, 无需先构造字符串
+     * 读取{@link #getLength()}个字节
+     *
+     * @param hash   ASCII字节
+     * @param offset 起始位置
+     * @return long 比特串
+     * @throws InvalidParameterException offset之后不足{@link #getLength()}个字节, 或含有字符集以外的字符
+     */
+    final public long toBits(byte[] hash, int offset) {
+        checkOffset(offset, hash.length);
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = (char) (hash[offset + i] & 0xFF);
+            bits = (bits << charLen) | checkCode(charDecode(c), c, offset + i);
+        }
+        return bits;
+    }
+
+    private void checkOffset(int offset, int arrayLength) {
+        if (offset < 0 || offset > arrayLength - length) {
+            throw new InvalidParameterException("offset expected to be in [0, " + (arrayLength - length) + "], " + offset + " found.");
+        }
+    }
+
+    private static int checkCode(byte code, char c, int index) {
+        if (code < 0) {
+            throw new InvalidParameterException("invalid geohash character '" + c + "' at " + index + ".");
+        }
+        return code;
+    }
+
+    /**
+     * 把比特串转换成hash串
+     * 只在需要字符串形式时调用
+     *
+     * @param bits 比特串
+     * @return String hash串
+     */
+    final public String toHash(long bits) {
+        return hash(bits);
+    }
+
+    /**
+     * 从比特串中取出纬度比特串
+     *
+     * @param bits 比特串
+     * @return int 纬度比特串
+     */
+    final protected int latBits(long bits) {
+        return Morton.squash(lngSearchTimes > latSearchTimes ? bits >>> 1 : bits) & mask(latSearchTimes);
+    }
+
+    /**
+     * 从比特串中取出经度比特串
+     *
+     * @param bits 比特串
+     * @return int 经度比特串
+     */
+    final protected int lngBits(long bits) {
+        return Morton.squash(lngSearchTimes > latSearchTimes ? bits : bits >>> 1) & mask(lngSearchTimes);
+    }
+
+    /**
+     * 低times位全为1的掩码
+     *
+     * @param times 比特数
+     * @return int
+     */
+    private static int mask(int times) {
+        return (int) ((1L << times) - 1);
+    }
+
+    /**
+     * 对比特串解码, 返回方块中心的纬度
+     *
+     * @param bits 比特串
+     * @return double 纬度
+     */
+    final public double decodeLat(long bits) {
+        return dequantize(MIN_LAT, MAX_LAT, latBits(bits), latSearchTimes);
+    }
+
+    /**
+     * 对比特串解码, 返回方块中心的经度
+     *
+     * @param bits 比特串
+     * @return double 经度
+     */
+    final public double decodeLng(long bits) {
+        return dequantize(MIN_LNG, MAX_LNG, lngBits(bits), lngSearchTimes);
+    }
+
+    /**
+     * 对比特串解码, 把方块的边界写入调用方提供的数组
+     *
+     * @param bits 比特串
+     * @param box  长度至少为4, 依次写入最小纬度, 最大纬度, 最小经度, 最大经度
+     */
+    final public void decodeBox(long bits, double[] box) {
+        double latHalf = (MAX_LAT - MIN_LAT) / Math.pow(2, latSearchTimes + 1);
+        double lngHalf = (MAX_LNG - MIN_LNG) / Math.pow(2, lngSearchTimes + 1);
+        double lat = decodeLat(bits);
+        double lng = decodeLng(bits);
+        box[0] = lat - latHalf;
+        box[1] = lat + latHalf;
+        box[2] = lng - lngHalf;
+        box[3] = lng + lngHalf;
+    }
+
+    /**
+     * 比特串所在方块的范围
+     *
+     * @param bits 比特串
+     * @return {@link BoundingBox}
+     */
+    final public BoundingBox decodeBounds(long bits) {
+        double[] box = new double[4];
+        decodeBox(bits, box);
+        return new BoundingBox(box[0], box[1], box[2], box[3]);
+    }
+
+    /**
+     * hash串所在方块的范围, 相比{@link #decode(String)}只返回中心点, 保留了精度信息
+     *
+     * @param hash hash串
+     * @return {@link BoundingBox}
+     */
+    final public BoundingBox decodeBounds(String hash) {
+        return decodeBounds(toBits(hash));
     }
 
     /**
@@ -193,7 +344,7 @@ public abstract class GeoHash {
      * @return String hash串
      */
     final public String encode(double lat, double lng) {
-        return encode(new Position(lat, lng));
+        return hash(toBits(lat, lng));
     }
 
     /**
@@ -203,22 +354,226 @@ public abstract class GeoHash {
      * @return String hash串
      */
     final public String encode(Position position) {
-        int latBits = binarySearch(MIN_LAT, MAX_LAT, position.getLat(), latSearchTimes);
-        int lngBits = binarySearch(MIN_LNG, MAX_LNG, position.getLng(), lngSearchTimes);
-        return hash(compact(lngBits, latBits));
+        return hash(toBits(position));
+    }
+
+    /**
+     * 对经纬度编码, 把hash串写入字符数组, 不产生临时对象
+     *
+     * @param lat    纬度
+     * @param lng    经度
+     * @param out    输出字符数组
+     * @param offset 写入的起始位置
+     * @return int 写入的字符数, 即{@link #getLength()}
+     */
+    final public int encode(double lat, double lng, char[] out, int offset) {
+        checkOffset(offset, out.length);
+        write(toBits(lat, lng), out, offset);
+        return length;
+    }
+
+    /**
+     * 对经纬度编码, 把hash串以ASCII字节写入字节数组, 不产生临时对象
+     *
+     * @param lat    纬度
+     * @param lng    经度
+     * @param out    输出字节数组
+     * @param offset 写入的起始位置
+     * @return int 写入的字节数, 即{@link #getLength()}
+     */
+    final public int encode(double lat, double lng, byte[] out, int offset) {
+        checkOffset(offset, out.length);
+        long bits = toBits(lat, lng);
+        int mask = (1 << charLen) - 1;
+        for (int i = length - 1; i >= 0; i--) {
+            out[offset + i] = (byte) charEncode((byte) (bits & mask));
+            bits >>>= charLen;
+        }
+        return length;
+    }
+
+    /**
+     * 对经纬度编码, 把hash串以ASCII字节写入缓冲区的当前位置, 写入后position前移
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @param out 输出缓冲区, 堆内或堆外均可
+     * @return int 写入的字节数, 即{@link #getLength()}
+     * @throws BufferOverflowException 剩余空间不足, 此时不写入任何字节
+     */
+    final public int encode(double lat, double lng, ByteBuffer out) {
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        long bits = toBits(lat, lng);
+        int position = out.position();
+        int mask = (1 << charLen) - 1;
+        for (int i = length - 1; i >= 0; i--) {
+            out.put(position + i, (byte) charEncode((byte) (bits & mask)));
+            bits >>>= charLen;
+        }
+        ((Buffer) out).position(position + length);
+        return length;
     }
 
     /**
      * 对hash串进行解码
+     * 短于{@link #getLength()}的hash串视为前缀, 返回前缀块内左下角的块的中心
      *
      * @param hash hash串
      * @return Position 位置
      */
     final public Position decode(String hash) {
-        int[] ps = separate(hash);
-        double lat = binarySearch(MIN_LAT, MAX_LAT, ps[0], latSearchTimes);
-        double lng = binarySearch(MIN_LNG, MAX_LNG, ps[1], lngSearchTimes);
-        return new Position(lat, lng);
+        long bits = toBits(hash);
+        return new Position(decodeLat(bits), decodeLng(bits));
+    }
+
+    /**
+     * 对hash串解码, 如StringBuilder或CharBuffer
+     *
+     * @param hash hash串
+     * @return Position 位置
+     */
+    final public Position decode(CharSequence hash) {
+        long bits = toBits(hash);
+        return new Position(decodeLat(bits), decodeLng(bits));
+    }
+
+    /**
+     * 对ASCII字节形式的hash串解码
+     *
+     * @param hash   ASCII字节
+     * @param offset 起始位置, 读取{@link #getLength()}个字节
+     * @return Position 位置
+     */
+    final public Position decode(byte[] hash, int offset) {
+        long bits = toBits(hash, offset);
+        return new Position(decodeLat(bits), decodeLng(bits));
+    }
+
+    /**
+     * 从缓冲区的当前位置读取{@link #getLength()}个ASCII字节并转换成比特串, 读取后position前移
+     *
+     * @param hash 输入缓冲区, 堆内或堆外均可
+     * @return long 比特串
+     * @throws BufferUnderflowException 剩余字节不足
+     * @throws InvalidParameterException 含有字符集以外的字符
+     */
+    final public long toBits(ByteBuffer hash) {
+        if (hash.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+        int position = hash.position();
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = (char) (hash.get(position + i) & 0xFF);
+            bits = (bits << charLen) | checkCode(charDecode(c), c, position + i);
+        }
+        ((Buffer) hash).position(position + length);
+        return bits;
+    }
+
+    /**
+     * 从缓冲区的当前位置读取hash串并解码, 读取后position前移
+     *
+     * @param hash 输入缓冲区
+     * @return Position 位置
+     */
+    final public Position decode(ByteBuffer hash) {
+        long bits = toBits(hash);
+        return new Position(decodeLat(bits), decodeLng(bits));
+    }
+
+    /**
+     * 批量把经纬度转换成比特串
+     * 列式输入, 循环内不产生临时对象
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的比特串数组
+     */
+    final public void toBits(double[] lats, double[] lngs, long[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        toBits(lats, lngs, out, 0, lats.length);
+    }
+
+    /**
+     * 批量把经纬度转换成比特串
+     * 只处理[from, to)区间, 输出写入out的相同下标
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的比特串数组
+     * @param from 起始下标(包含)
+     * @param to   结束下标(不包含)
+     */
+    final public void toBits(double[] lats, double[] lngs, long[] out, int from, int to) {
+        checkRange(from, to, lats.length, lngs.length, out.length);
+        int latTimes = latSearchTimes;
+        int lngTimes = lngSearchTimes;
+        for (int i = from; i < to; i++) {
+            out[i] = compact(quantize(MIN_LNG, MAX_LNG, lngs[i], lngTimes), quantize(MIN_LAT, MAX_LAT, lats[i], latTimes));
+        }
+    }
+
+    /**
+     * 批量对经纬度Hash编码
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的hash串数组
+     */
+    final public void encode(double[] lats, double[] lngs, String[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        for (int i = 0; i < lats.length; i++) {
+            out[i] = hash(toBits(lats[i], lngs[i]));
+        }
+    }
+
+    /**
+     * 批量对经纬度Hash编码
+     * 第i个hash串写入out的[i * length, (i + 1) * length)区间
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出字符数组, 长度至少为 lats.length * length
+     */
+    final public void encode(double[] lats, double[] lngs, char[] out) {
+        checkBatch(lats.length, lngs.length, out.length / length);
+        for (int i = 0, offset = 0; i < lats.length; i++, offset += length) {
+            write(toBits(lats[i], lngs[i]), out, offset);
+        }
+    }
+
+    /**
+     * 批量对比特串解码, 输出方块中心的经纬度
+     *
+     * @param bits    比特串数组
+     * @param latsOut 输出的纬度数组
+     * @param lngsOut 输出的经度数组
+     */
+    final public void decode(long[] bits, double[] latsOut, double[] lngsOut) {
+        checkBatch(bits.length, latsOut.length, lngsOut.length);
+        int latTimes = latSearchTimes;
+        int lngTimes = lngSearchTimes;
+        for (int i = 0; i < bits.length; i++) {
+            latsOut[i] = dequantize(MIN_LAT, MAX_LAT, latBits(bits[i]), latTimes);
+        }
+        for (int i = 0; i < bits.length; i++) {
+            lngsOut[i] = dequantize(MIN_LNG, MAX_LNG, lngBits(bits[i]), lngTimes);
+        }
+    }
+
+    private static void checkBatch(int inputLen, int otherLen, int outputLen) {
+        if (otherLen != inputLen || outputLen < inputLen) {
+            throw new InvalidParameterException("array length mismatch: " + inputLen + ", " + otherLen + ", " + outputLen);
+        }
+    }
+
+    private static void checkRange(int from, int to, int latLen, int lngLen, int outLen) {
+        if (from < 0 || from > to || to > latLen || to > lngLen || to > outLen) {
+            throw new InvalidParameterException("range [" + from + ", " + to + ") is out of bounds.");
+        }
     }
 
     /**
@@ -242,52 +597,104 @@ public abstract class GeoHash {
         return getNeibor(encode(position));
     }
 
+    /**
+     * 获取某个hash块周围的八个方块
+     * 经度方向跨越±180°经线时回绕, 纬度方向在南北极没有邻近块, 对应的值为null
+     *
+     * @param hash 中心hash串
+     * @return {@link Neibor}
+     */
     public Neibor getNeibor(String hash) {
-        int[] ints = separate(hash);
-        int latBits = ints[0];
-        if (latBits < 0 && latBits > (1 << latSearchTimes)) {
-            throw new RuntimeException("lat: " + latBits + " is out of range");
-        }
-        int lngBits = ints[1];
-        if (lngBits < 0 && lngBits < (1 << lngSearchTimes)) {
-            throw new RuntimeException("lng: " + lngBits + " is out of range");
-        }
+        long bits = toBits(hash);
+        long[] cells = new long[Neibor.SIZE];
+        neighbors(bits, cells);
+        long lat = latBits(bits) & 0xFFFFFFFFL;
+        boolean south = lat > 0;
+        boolean north = lat < (1L << latSearchTimes) - 1;
         Neibor neibor = new Neibor(hash);
-        int south = latBits > 0 ? latBits - 1 : -1;
-        int north = latBits < (1 << latSearchTimes) ? latBits + 1 : -1;
-        int west = lngBits > 0 ? lngBits - 1 : -1;
-        int east = lngBits < (1 << lngSearchTimes) ? lngBits + 1 : -1;
-        if (south >= 0) {
-            neibor.setSouth(hash(compact(lngBits, south)));
-            if (west >= 0) {
-                neibor.setSouthwest(hash(compact(west, south)));
-            }
-            if (east >= 0) {
-                neibor.setSoutheast(hash(compact(east, south)));
-            }
-        }
-        if (north >= 0) {
-            neibor.setNorth(hash(compact(lngBits, north)));
-            if (west >= 0) {
-                neibor.setNorthwest(hash(compact(west, north)));
-            }
-            if (east >= 0) {
-                neibor.setNortheast(hash(compact(east, north)));
-            }
+        neibor.setWest(hash(cells[Neibor.WEST]));
+        neibor.setEast(hash(cells[Neibor.EAST]));
+        if (north) {
+            neibor.setNorthwest(hash(cells[Neibor.NORTHWEST]));
+            neibor.setNorth(hash(cells[Neibor.NORTH]));
+            neibor.setNortheast(hash(cells[Neibor.NORTHEAST]));
         }
-        if (west >= 0) {
-            neibor.setWest(hash(compact(west, latBits)));
-        }
-        if (east >= 0) {
-            neibor.setEast(hash(compact(east, latBits)));
+        if (south) {
+            neibor.setSouthwest(hash(cells[Neibor.SOUTHWEST]));
+            neibor.setSouth(hash(cells[Neibor.SOUTH]));
+            neibor.setSoutheast(hash(cells[Neibor.SOUTHEAST]));
         }
         return neibor;
     }
 
+    /**
+     * 计算比特串所在方块及其周围八个方块的比特串, 不产生临时对象
+     * 按{@link Neibor#NORTHWEST}到{@link Neibor#SOUTHEAST}的下标写入out
+     * 经度方向跨越±180°经线时回绕; 纬度方向在南北极截断, 即极点处的北(南)一行与中心行相同
+     *
+     * @param bits 中心比特串
+     * @param out  长度至少为{@link Neibor#SIZE}的输出数组
+     */
+    final public void neighbors(long bits, long[] out) {
+        long latMax = (1L << latSearchTimes) - 1;
+        long lngMask = (1L << lngSearchTimes) - 1;
+        long lat = latBits(bits) & 0xFFFFFFFFL;
+        long lng = lngBits(bits) & 0xFFFFFFFFL;
+        int south = (int) (lat > 0 ? lat - 1 : lat);
+        int north = (int) (lat < latMax ? lat + 1 : lat);
+        int west = (int) ((lng - 1) & lngMask);
+        int east = (int) ((lng + 1) & lngMask);
+        out[Neibor.NORTHWEST] = compact(west, north);
+        out[Neibor.NORTH] = compact((int) lng, north);
+        out[Neibor.NORTHEAST] = compact(east, north);
+        out[Neibor.WEST] = compact(west, (int) lat);
+        out[Neibor.CENTER] = bits;
+        out[Neibor.EAST] = compact(east, (int) lat);
+        out[Neibor.SOUTHWEST] = compact(west, south);
+        out[Neibor.SOUTH] = compact((int) lng, south);
+        out[Neibor.SOUTHEAST] = compact(east, south);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
     public int getBitsLength() {
         return length * charLen;
     }
 
+    public int getCharBitsLength() {
+        return charLen;
+    }
+
+    public int getLatBitsLength() {
+        return latSearchTimes;
+    }
+
+    public int getLngBitsLength() {
+        return lngSearchTimes;
+    }
+
+    /**
+     * 按单字符比特数和长度获取编码
+     *
+     * @param charLen 单个字符的比特数, 2, 4 或 5
+     * @param length  编码长度
+     * @return GeoHash
+     */
+    static GeoHash valueOf(int charLen, int length) {
+        switch (charLen) {
+            case Base4.CHAR_BIT_LEN:
+                return Base4.getBase4(length);
+            case Base16.CHAR_BIT_LEN:
+                return Base16.getBase16(length);
+            case Base32.CHAR_BIT_LEN:
+                return Base32.getBase32(length);
+            default:
+                throw new InvalidParameterException("charLen expected to be 2, 4 or 5, " + charLen + " found.");
+        }
+    }
+
     /**
      * 精度对照映射表
      * 单位: cm
@@ -372,6 +779,16 @@ public abstract class GeoHash {
         return builder.toString();
     }
 
+    /**
+     * 逐位二分查找, 把坐标转换成比特串
+     * 作为{@link #quantize(double, double, double, int)}的对照实现保留
+     *
+     * @param begin 区间下界
+     * @param end   区间上界
+     * @param pos   坐标
+     * @param times 二分次数
+     * @return int 比特串
+     */
     static int binarySearch(double begin, double end, double pos, int times) {
         if (times <= 0 || times > MAX_BITS / 2) {
             throw new InvalidParameterException("length * charLen expected to be in (0, " + MAX_BITS / 2 + "], " + times + " found.");
@@ -391,6 +808,16 @@ public abstract class GeoHash {
         return bits;
     }
 
+    /**
+     * 逐位二分查找, 把比特串还原成方块中心坐标
+     * 作为{@link #dequantize(double, double, int, int)}的对照实现保留
+     *
+     * @param begin 区间下界
+     * @param end   区间上界
+     * @param pos   比特串
+     * @param times 二分次数
+     * @return double 坐标
+     */
     static double binarySearch(double begin, double end, int pos, int times) {
         if (times <= 0 || times > MAX_BITS / 2) {
             throw new InvalidParameterException("length * charLen expected to be in (0, " + MAX_BITS / 2 + "], " + times + " found.");
@@ -410,4 +837,54 @@ public abstract class GeoHash {
         }
         return (begin + end) / 2;
     }
+
+    /**
+     * 直接计算坐标所在方块的序号, 结果与{@link #binarySearch(double, double, double, int)}逐位一致
+     * 先按比例估算序号, 再用方块的精确边界修正一次浮点舍入误差
+     * 区间端点为整数时, 各级二分的边界都能用double精确表示, 因此修正后的比较与二分查找完全相同
+     * 与二分查找相同, 越界或NaN的坐标返回全1
+     *
+     * @param begin 区间下界
+     * @param end   区间上界
+     * @param pos   坐标
+     * @param times 比特数
+     * @return int 比特串
+     */
+    static int quantize(double begin, double end, double pos, int times) {
+        if (times <= 0 || times > MAX_BITS / 2) {
+            throw new InvalidParameterException("length * charLen expected to be in (0, " + MAX_BITS / 2 + "], " + times + " found.");
+        }
+        long max = (1L << times) - 1;
+        if (!(pos >= begin && pos < end)) {
+            return (int) max;
+        }
+        double cell = (end - begin) / (1L << times);
+        long index = (long) ((pos - begin) / cell);
+        if (index > max) {
+            index = max;
+        }
+        if (pos < begin + index * cell) {
+            index--;
+        } else if (index < max && pos >= begin + (index + 1) * cell) {
+            index++;
+        }
+        return (int) index;
+    }
+
+    /**
+     * 直接计算方块中心坐标, 结果与{@link #binarySearch(double, double, int, int)}逐位一致
+     *
+     * @param begin 区间下界
+     * @param end   区间上界
+     * @param pos   比特串
+     * @param times 比特数
+     * @return double 坐标
+     */
+    static double dequantize(double begin, double end, int pos, int times) {
+        if (times <= 0 || times > MAX_BITS / 2) {
+            throw new InvalidParameterException("length * charLen expected to be in (0, " + MAX_BITS / 2 + "], " + times + " found.");
+        }
+        long index = pos & ((1L << times) - 1);
+        return begin + (2 * index + 1) * ((end - begin) / (1L << (times + 1)));
+    }
 }
@@ -0,0 +1,251 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * geohash块的密度聚合
+ * 以最细精度的比特串为键累加计数和数值之和, 较粗精度的结果由比特串右移截断前缀汇总得到, 无需重新编码
+ * <p>
+ * 线程安全: 块按比特串的哈希分到若干分段, 每个分段独立加锁, 不同块的写入很少竞争;
+ * 同一个块总在同一分段, 汇总时各分段的结果直接合并
+ *
+ * @author tim
+ */
+public class GeoHashHeatmap {
+    private final GeoHash geoHash;
+    private final Accumulator[] stripes;
+
+    /**
+     * 分段数为可用处理器数的4倍
+     *
+     * @param geoHash 最细的聚合精度, 如{@link Base32#getBase32(int) Base32.getBase32(7)}
+     */
+    public GeoHashHeatmap(GeoHash geoHash) {
+        this(geoHash, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param geoHash 最细的聚合精度, 比特数必须小于64
+     * @param stripes 分段数, 向上取2的幂
+     */
+    public GeoHashHeatmap(GeoHash geoHash, int stripes) {
+        if (geoHash.getBitsLength() >= 64) {
+            throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+        }
+        if (stripes <= 0 || stripes > 1 << 16) {
+            throw new InvalidParameterException("stripes expected to be in [1, 65536], " + stripes + " found.");
+        }
+        this.geoHash = geoHash;
+        this.stripes = new Accumulator[Integer.highestOneBit(stripes * 2 - 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Accumulator();
+        }
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    /**
+     * 计数加1
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     */
+    public void add(double lat, double lng) {
+        add(geoHash.toBits(lat, lng), 1, 0);
+    }
+
+    /**
+     * 计数加1, 数值累加到所在块
+     *
+     * @param lat   纬度
+     * @param lng   经度
+     * @param value 数值, 如订单金额
+     */
+    public void add(double lat, double lng, double value) {
+        add(geoHash.toBits(lat, lng), 1, value);
+    }
+
+    /**
+     * 直接按最细精度的比特串累加, 用于合并预先聚合的结果
+     *
+     * @param bits  最细精度的比特串
+     * @param count 计数
+     * @param sum   数值之和
+     */
+    public void add(long bits, long count, double sum) {
+        // 分段取混合值的高位, 与分段内哈希表使用的低位不重叠
+        Accumulator stripe = stripes[(int) (LongHashing.mix64(bits) >>> 48) & (stripes.length - 1)];
+        synchronized (stripe) {
+            stripe.add(bits, count, sum);
+        }
+    }
+
+    /**
+     * 清空全部计数
+     */
+    public void clear() {
+        for (Accumulator stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * 导出指定精度的快照
+     * 每个分段在加锁期间复制, 快照不反映复制后的写入
+     *
+     * @param length 编码长度, 不超过最细精度
+     * @return {@link Snapshot}
+     */
+    public Snapshot snapshot(int length) {
+        int shift = shift(geoHash, length);
+        Accumulator total = new Accumulator();
+        for (Accumulator stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.size; i++) {
+                    total.add(stripe.cells[i] >>> shift, stripe.counts[i], stripe.sums[i]);
+                }
+            }
+        }
+        return total.toSnapshot(geoHash.withLength(length));
+    }
+
+    private static int shift(GeoHash geoHash, int length) {
+        if (length <= 0 || length > geoHash.getLength()) {
+            throw new InvalidParameterException("length expected to be in [1, " + geoHash.getLength() + "], " + length + " found.");
+        }
+        return (geoHash.getLength() - length) * geoHash.getCharBitsLength();
+    }
+
+    /**
+     * 某一精度下各块的计数和数值之和, 按比特串升序排列, 不可变
+     */
+    public static final class Snapshot {
+        private final GeoHash geoHash;
+        private final long[] cells;
+        private final long[] counts;
+        private final double[] sums;
+
+        private Snapshot(GeoHash geoHash, long[] cells, long[] counts, double[] sums) {
+            this.geoHash = geoHash;
+            this.cells = cells;
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        public GeoHash getGeoHash() {
+            return geoHash;
+        }
+
+        /**
+         * 非空块的数量
+         */
+        public int size() {
+            return cells.length;
+        }
+
+        public long getBits(int index) {
+            return cells[index];
+        }
+
+        public String getHash(int index) {
+            return geoHash.toHash(cells[index]);
+        }
+
+        public long getCount(int index) {
+            return counts[index];
+        }
+
+        public double getSum(int index) {
+            return sums[index];
+        }
+
+        /**
+         * 块的计数
+         *
+         * @param bits 本快照精度的比特串
+         * @return 块不存在时返回0
+         */
+        public long count(long bits) {
+            int index = Arrays.binarySearch(cells, bits);
+            return index >= 0 ? counts[index] : 0;
+        }
+
+        /**
+         * 汇总成更粗的精度
+         *
+         * @param length 编码长度, 不超过本快照的精度
+         * @return {@link Snapshot}
+         */
+        public Snapshot rollup(int length) {
+            int shift = shift(geoHash, length);
+            // 已按比特串排序, 截断后相同前缀的块相邻, 顺序合并即可
+            LongList rolled = new LongList(cells.length);
+            long[] rolledCounts = new long[cells.length];
+            double[] rolledSums = new double[cells.length];
+            int size = 0;
+            for (int i = 0; i < cells.length; i++) {
+                long cell = cells[i] >>> shift;
+                if (size == 0 || rolled.get(size - 1) != cell) {
+                    rolled.add(cell);
+                    size++;
+                }
+                rolledCounts[size - 1] += counts[i];
+                rolledSums[size - 1] += sums[i];
+            }
+            return new Snapshot(geoHash.withLength(length), rolled.toArray(),
+                Arrays.copyOf(rolledCounts, size), Arrays.copyOf(rolledSums, size));
+        }
+    }
+
+    /**
+     * 单线程的累加表, 块的序号存在{@link GeoHashLongToIntMap}中, 计数和数值之和存在并列数组中
+     */
+    private static final class Accumulator {
+        private final GeoHashLongToIntMap index = new GeoHashLongToIntMap();
+        private long[] cells = new long[16];
+        private long[] counts = new long[16];
+        private double[] sums = new double[16];
+        private int size;
+
+        void add(long cell, long count, double sum) {
+            int i = index.getOrDefault(cell, -1);
+            if (i < 0) {
+                if (size == cells.length) {
+                    cells = Arrays.copyOf(cells, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                    sums = Arrays.copyOf(sums, size * 2);
+                }
+                i = size++;
+                index.put(cell, i);
+                cells[i] = cell;
+            }
+            counts[i] += count;
+            sums[i] += sum;
+        }
+
+        void clear() {
+            index.clear();
+            Arrays.fill(counts, 0, size, 0);
+            Arrays.fill(sums, 0, size, 0);
+            size = 0;
+        }
+
+        Snapshot toSnapshot(GeoHash geoHash) {
+            long[] sorted = Arrays.copyOf(cells, size);
+            Arrays.sort(sorted);
+            long[] sortedCounts = new long[size];
+            double[] sortedSums = new double[size];
+            for (int j = 0; j < size; j++) {
+                int i = index.get(sorted[j]);
+                sortedCounts[j] = counts[i];
+                sortedSums[j] = sums[i];
+            }
+            return new Snapshot(geoHash, sorted, sortedCounts, sortedSums);
+        }
+    }
+}
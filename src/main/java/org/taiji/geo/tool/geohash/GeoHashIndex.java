@@ -0,0 +1,412 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于geohash的内存空间索引
+ * 以{@link GeoHash#toBits(double, double)}为键, 用按键排序的原始类型数组保存(键, 纬度, 经度, id),
+ * 同一块内的点在数组中连续, 任意长度的块都对应一段连续下标
+ * <p>
+ * 半径检索先用{@link CircleCoverer}得到覆盖块, 再按块扫描并以{@link PreparedOrigin#within(double, double, double)}过滤,
+ * 结果与harvesine距离比较一致;
+ * 最近邻检索以逐步倍增的半径向外扩展, 直到圆内已有k个点
+ * <p>
+ * 点分三层存放: 有序的主数组, 有序的增量数组, 最多{@link #PENDING}个未排序的新插入.
+ * 新插入攒满后排序并归并进增量数组, 增量数组超过主数组的1/16(至少{@link #MIN_DELTA}个)后再归并进主数组,
+ * 检索在三层中分别查找, 不触发归并; 删除需要移动其后的元素, 每次O(n)
+ * <p>
+ * 非线程安全: 检索不修改索引, 没有写入时可以并发检索; 写入与检索并发时需要外部同步
+ *
+ * @author tim
+ */
+public class GeoHashIndex {
+    /**
+     * 半径检索时覆盖块数的上限
+     */
+    static final int COVER_CELLS = 64;
+
+    /**
+     * 未排序的新插入个数上限, 检索时逐个比较
+     */
+    static final int PENDING = 128;
+
+    /**
+     * 增量数组归并进主数组的最小长度
+     */
+    static final int MIN_DELTA = 1 << 10;
+
+    /**
+     * 地球表面两点的最大距离(半周长), 单位: 米
+     */
+    private static final double MAX_DISTANCE = Math.PI * GeoCalculator.EARTH_DIAMETER;
+
+    private final GeoHash geoHash;
+    private final int bitsLength;
+    private final Run main = new Run(16);
+    /**
+     * [0, deltaSorted)按键有序, [deltaSorted, delta.size)是未排序的新插入
+     */
+    private final Run delta = new Run(16);
+    private int deltaSorted;
+    /**
+     * 归并时暂存较短一段, 在多次归并之间复用
+     */
+    private final Run buffer = new Run(0);
+
+    /**
+     * @param geoHash 键的编码精度, 比特数必须小于64, 如{@link Base32#getBase32(int) Base32.getBase32(12)}
+     */
+    public GeoHashIndex(GeoHash geoHash) {
+        if (geoHash.getBitsLength() >= 64) {
+            throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+        }
+        this.geoHash = geoHash;
+        this.bitsLength = geoHash.getBitsLength();
+    }
+
+    public int size() {
+        return main.size + delta.size;
+    }
+
+    /**
+     * 插入一个点
+     *
+     * @param id  实体id
+     * @param lat 纬度
+     * @param lng 经度
+     */
+    public void insert(long id, double lat, double lng) {
+        delta.add(geoHash.toBits(lat, lng), lat, lng, id);
+        if (delta.size - deltaSorted < PENDING) {
+            return;
+        }
+        delta.sort(deltaSorted, delta.size);
+        merge(delta, deltaSorted);
+        deltaSorted = delta.size;
+        if (delta.size >= Math.max(MIN_DELTA, main.size >>> 4)) {
+            int mid = main.size;
+            main.addAll(delta);
+            merge(main, mid);
+            delta.size = 0;
+            deltaSorted = 0;
+        }
+    }
+
+    /**
+     * 删除一个点
+     * 需要给出插入时的坐标, 用于定位所在的块
+     *
+     * @param id  实体id
+     * @param lat 插入时的纬度
+     * @param lng 插入时的经度
+     * @return 是否删除
+     */
+    public boolean remove(long id, double lat, double lng) {
+        long key = geoHash.toBits(lat, lng);
+        int i = main.indexOf(key, id, 0, main.size);
+        if (i >= 0) {
+            main.removeAt(i);
+            return true;
+        }
+        i = delta.indexOf(key, id, 0, deltaSorted);
+        if (i >= 0) {
+            delta.removeAt(i);
+            deltaSorted--;
+            return true;
+        }
+        for (i = deltaSorted; i < delta.size; i++) {
+            if (delta.keys[i] == key && delta.ids[i] == id) {
+                delta.removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 半径检索
+     *
+     * @param lat    圆心纬度
+     * @param lng    圆心经度
+     * @param radius 半径, 单位: 米
+     * @return 圆内实体的id, 无序
+     */
+    public long[] within(double lat, double lng, double radius) {
+        LongList result = new LongList();
+        PreparedOrigin origin = new PreparedOrigin(lat, lng);
+        for (CircleCoverer.Cell cell : cover(lat, lng, radius)) {
+            int shift = bitsLength - cell.length * geoHash.getCharBitsLength();
+            long from = cell.bits << shift;
+            long to = (cell.bits + 1) << shift;
+            within(main, main.lowerBound(from, 0, main.size), main.lowerBound(to, 0, main.size), origin, radius, result);
+            within(delta, delta.lowerBound(from, 0, deltaSorted), delta.lowerBound(to, 0, deltaSorted), origin, radius, result);
+        }
+        // 新插入的点逐个比较, 覆盖块包含整个圆, 不必再按块过滤
+        within(delta, deltaSorted, delta.size, origin, radius, result);
+        return result.toArray();
+    }
+
+    private static void within(Run run, int from, int to, PreparedOrigin origin, double radius, LongList result) {
+        for (int i = from; i < to; i++) {
+            if (origin.within(run.lats[i], run.lngs[i], radius)) {
+                result.add(run.ids[i]);
+            }
+        }
+    }
+
+    /**
+     * k最近邻检索
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @param k   个数
+     * @return 按距离由近到远排列的id, 索引中不足k个点时返回全部
+     */
+    public long[] nearest(double lat, double lng, int k) {
+        int size = size();
+        if (k <= 0 || size == 0) {
+            return new long[0];
+        }
+        k = Math.min(k, size);
+        double[] distances = new double[k];
+        long[] result = new long[k];
+        double radius = initialRadius(k);
+        PreparedOrigin origin = new PreparedOrigin(lat, lng);
+        while (true) {
+            int found = 0;
+            for (CircleCoverer.Cell cell : cover(lat, lng, radius)) {
+                int shift = bitsLength - cell.length * geoHash.getCharBitsLength();
+                long from = cell.bits << shift;
+                long to = (cell.bits + 1) << shift;
+                found = offer(main, main.lowerBound(from, 0, main.size), main.lowerBound(to, 0, main.size),
+                    origin, radius, distances, result, found);
+                found = offer(delta, delta.lowerBound(from, 0, deltaSorted), delta.lowerBound(to, 0, deltaSorted),
+                    origin, radius, distances, result, found);
+            }
+            found = offer(delta, deltaSorted, delta.size, origin, radius, distances, result, found);
+            // 圆外的点都比圆内的k个点远
+            if (found == k || radius >= MAX_DISTANCE) {
+                return found == k ? result : Arrays.copyOf(result, found);
+            }
+            radius *= 2;
+        }
+    }
+
+    private static int offer(Run run, int from, int to, PreparedOrigin origin, double radius,
+                             double[] distances, long[] result, int found) {
+        for (int i = from; i < to; i++) {
+            double distance = origin.harvesineDistance(run.lats[i], run.lngs[i]);
+            if (distance <= radius) {
+                found = offer(distances, result, found, distance, run.ids[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 按距离插入有序的候选数组, 保留最近的k个
+     *
+     * @return 插入后的候选个数
+     */
+    private static int offer(double[] distances, long[] result, int found, double distance, long id) {
+        int k = distances.length;
+        if (found == k && distance >= distances[k - 1]) {
+            return found;
+        }
+        int i = found == k ? k - 1 : found;
+        for (; i > 0 && distances[i - 1] > distance; i--) {
+            distances[i] = distances[i - 1];
+            result[i] = result[i - 1];
+        }
+        distances[i] = distance;
+        result[i] = id;
+        return found == k ? k : found + 1;
+    }
+
+    /**
+     * 按平均密度估计包含k个点的半径
+     */
+    private double initialRadius(int k) {
+        double area = 4 * Math.PI * GeoCalculator.EARTH_DIAMETER * GeoCalculator.EARTH_DIAMETER;
+        double radius = Math.sqrt(area * k / size() / Math.PI);
+        double[] box = new double[4];
+        geoHash.decodeBox(0, box);
+        double cell = (box[1] - box[0]) * Math.PI / 180 * GeoCalculator.EARTH_DIAMETER;
+        return Math.max(radius, cell);
+    }
+
+    private List<CircleCoverer.Cell> cover(double lat, double lng, double radius) {
+        return CircleCoverer.forRadius(geoHash, radius, COVER_CELLS).coverCells(lat, lng, radius);
+    }
+
+    /**
+     * 归并run中相邻的有序段[0, mid)和[mid, size), 缓冲区只暂存较短的一段, 键相同时保持原有顺序
+     */
+    private void merge(Run run, int mid) {
+        int right = run.size - mid;
+        if (mid == 0 || right == 0 || run.keys[mid - 1] <= run.keys[mid]) {
+            return;
+        }
+        buffer.reserve(Math.min(mid, right));
+        if (mid <= right) {
+            run.mergeForward(mid, buffer);
+        } else {
+            run.mergeBackward(mid, buffer);
+        }
+    }
+
+    /**
+     * 并列的(键, 纬度, 经度, id)数组
+     */
+    private static final class Run {
+        private long[] keys;
+        private double[] lats;
+        private double[] lngs;
+        private long[] ids;
+        private int size;
+
+        Run(int capacity) {
+            this.keys = new long[capacity];
+            this.lats = new double[capacity];
+            this.lngs = new double[capacity];
+            this.ids = new long[capacity];
+        }
+
+        void reserve(int capacity) {
+            if (capacity <= keys.length) {
+                return;
+            }
+            capacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+
+        void add(long key, double lat, double lng, long id) {
+            reserve(size + 1);
+            keys[size] = key;
+            lats[size] = lat;
+            lngs[size] = lng;
+            ids[size] = id;
+            size++;
+        }
+
+        void addAll(Run run) {
+            reserve(size + run.size);
+            copy(run, 0, this, size, run.size);
+            size += run.size;
+        }
+
+        void removeAt(int i) {
+            copy(this, i + 1, this, i, size - i - 1);
+            size--;
+        }
+
+        /**
+         * 有序段[from, to)中键和id都相同的下标, 没有时返回-1
+         */
+        int indexOf(long key, long id, int from, int to) {
+            for (int i = lowerBound(key, from, to); i < to && keys[i] == key; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 有序段[from, to)中第一个不小于key的下标
+         */
+        int lowerBound(long key, int from, int to) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 插入排序, 只用于不超过{@link #PENDING}个的新插入
+         */
+        void sort(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                long key = keys[i];
+                double lat = lats[i];
+                double lng = lngs[i];
+                long id = ids[i];
+                int j = i;
+                for (; j > from && keys[j - 1] > key; j--) {
+                    move(j - 1, j);
+                }
+                keys[j] = key;
+                lats[j] = lat;
+                lngs[j] = lng;
+                ids[j] = id;
+            }
+        }
+
+        /**
+         * 左段较短: 左段移入缓冲区, 从前往后归并
+         */
+        void mergeForward(int mid, Run buffer) {
+            copy(this, 0, buffer, 0, mid);
+            int i = 0;
+            int j = mid;
+            int k = 0;
+            while (i < mid && j < size) {
+                if (keys[j] < buffer.keys[i]) {
+                    move(j++, k++);
+                } else {
+                    set(buffer, i++, k++);
+                }
+            }
+            copy(buffer, i, this, k, mid - i);
+        }
+
+        /**
+         * 右段较短: 右段移入缓冲区, 从后往前归并
+         */
+        void mergeBackward(int mid, Run buffer) {
+            int right = size - mid;
+            copy(this, mid, buffer, 0, right);
+            int i = mid - 1;
+            int j = right - 1;
+            int k = size - 1;
+            while (i >= 0 && j >= 0) {
+                if (keys[i] > buffer.keys[j]) {
+                    move(i--, k--);
+                } else {
+                    set(buffer, j--, k--);
+                }
+            }
+            copy(buffer, 0, this, 0, j + 1);
+        }
+
+        private void move(int from, int to) {
+            set(this, from, to);
+        }
+
+        private void set(Run src, int from, int to) {
+            keys[to] = src.keys[from];
+            lats[to] = src.lats[from];
+            lngs[to] = src.lngs[from];
+            ids[to] = src.ids[from];
+        }
+
+        private static void copy(Run src, int srcPos, Run dest, int destPos, int length) {
+            System.arraycopy(src.keys, srcPos, dest.keys, destPos, length);
+            System.arraycopy(src.lats, srcPos, dest.lats, destPos, length);
+            System.arraycopy(src.lngs, srcPos, dest.lngs, destPos, length);
+            System.arraycopy(src.ids, srcPos, dest.ids, destPos, length);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.taiji.geo.tool.geohash;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 以geohash比特串为元素的集合
+ * 开放寻址, 线性探测, 元素以原始类型保存, 不装箱
+ * <p>
+ * 非线程安全
+ *
+ * @author tim
+ * @see LongHashing
+ */
+public class GeoHashLongSet {
+    private long[] keys;
+    private int mask;
+    private int threshold;
+    private int size;
+    private boolean hasFree;
+
+    public GeoHashLongSet() {
+        this(LongHashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize 预计的元素数, 达到该数量前不扩容
+     */
+    public GeoHashLongSet(int expectedSize) {
+        allocate(LongHashing.capacity(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 集合中原来没有该元素时返回true
+     */
+    public boolean add(long key) {
+        if (key == LongHashing.FREE) {
+            if (hasFree) {
+                return false;
+            }
+            hasFree = true;
+            size++;
+            return true;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > threshold) {
+            rehash(LongHashing.grow(keys.length));
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == LongHashing.FREE) {
+            return hasFree;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 集合中有该元素时返回true
+     */
+    public boolean remove(long key) {
+        if (key == LongHashing.FREE) {
+            if (!hasFree) {
+                return false;
+            }
+            hasFree = false;
+            size--;
+            return true;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                shift(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, LongHashing.FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    /**
+     * 遍历全部元素, 顺序不确定
+     *
+     * @param action 元素处理
+     */
+    public void forEach(LongConsumer action) {
+        if (hasFree) {
+            action.accept(LongHashing.FREE);
+        }
+        for (long key : keys) {
+            if (key != LongHashing.FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int[] index = new int[1];
+        forEach(key -> result[index[0]++] = key);
+        return result;
+    }
+
+    /**
+     * 删除slot处的元素, 把其后同一簇中的元素前移, 不留墓碑
+     */
+    private void shift(int slot) {
+        int gap = slot;
+        int i = (gap + 1) & mask;
+        while (keys[i] != LongHashing.FREE) {
+            if (LongHashing.canShift(gap, i, LongHashing.mix(keys[i]) & mask, mask)) {
+                keys[gap] = keys[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = LongHashing.FREE;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        threshold = LongHashing.threshold(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key != LongHashing.FREE) {
+                int slot = LongHashing.mix(key) & mask;
+                while (keys[slot] != LongHashing.FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
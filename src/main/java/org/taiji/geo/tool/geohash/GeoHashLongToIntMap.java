@@ -0,0 +1,245 @@
+package org.taiji.geo.tool.geohash;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 以geohash比特串为键, int为值的映射, 适合按块计数
+ * 开放寻址, 线性探测, 键和值都以原始类型保存, 不装箱
+ * <p>
+ * 非线程安全
+ *
+ * @author tim
+ * @see LongHashing
+ */
+public class GeoHashLongToIntMap {
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+    private boolean hasFree;
+    private int freeValue;
+
+    public GeoHashLongToIntMap() {
+        this(LongHashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize 预计的键数, 达到该数量前不扩容
+     */
+    public GeoHashLongToIntMap(int expectedSize) {
+        allocate(LongHashing.capacity(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == LongHashing.FREE) {
+            return hasFree;
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 键对应的值, 不存在时返回0
+     */
+    public int get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(long key, int defaultValue) {
+        if (key == LongHashing.FREE) {
+            return hasFree ? freeValue : defaultValue;
+        }
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @param key   比特串
+     * @param value 值
+     * @return 原来的值, 不存在时返回0
+     */
+    public int put(long key, int value) {
+        if (key == LongHashing.FREE) {
+            int old = hasFree ? freeValue : 0;
+            if (!hasFree) {
+                hasFree = true;
+                size++;
+            }
+            freeValue = value;
+            return old;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, value);
+        return 0;
+    }
+
+    /**
+     * 把delta加到键对应的值上, 键不存在时视为0
+     *
+     * @param key   比特串
+     * @param delta 增量
+     * @return 相加后的值
+     */
+    public int addTo(long key, int delta) {
+        if (key == LongHashing.FREE) {
+            if (!hasFree) {
+                hasFree = true;
+                size++;
+            }
+            return freeValue += delta;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return values[slot] += delta;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 删除的值, 不存在时返回0
+     */
+    public int remove(long key) {
+        if (key == LongHashing.FREE) {
+            if (!hasFree) {
+                return 0;
+            }
+            hasFree = false;
+            size--;
+            int old = freeValue;
+            freeValue = 0;
+            return old;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int old = values[slot];
+        shift(slot);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, LongHashing.FREE);
+        Arrays.fill(values, 0);
+        hasFree = false;
+        freeValue = 0;
+        size = 0;
+    }
+
+    /**
+     * 遍历全部键值对, 顺序不确定
+     *
+     * @param action 键值对处理
+     */
+    public void forEach(EntryConsumer action) {
+        if (hasFree) {
+            action.accept(LongHashing.FREE, freeValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != LongHashing.FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * 遍历全部键, 顺序不确定
+     *
+     * @param action 键处理
+     */
+    public void forEachKey(LongConsumer action) {
+        forEach((key, value) -> action.accept(key));
+    }
+
+    private int find(long key) {
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(LongHashing.grow(keys.length));
+        }
+    }
+
+    /**
+     * 删除slot处的键值对, 把其后同一簇中的键值对前移, 不留墓碑
+     */
+    private void shift(int slot) {
+        int gap = slot;
+        int i = (gap + 1) & mask;
+        while (keys[i] != LongHashing.FREE) {
+            if (LongHashing.canShift(gap, i, LongHashing.mix(keys[i]) & mask, mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = LongHashing.FREE;
+        values[gap] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = LongHashing.threshold(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != LongHashing.FREE) {
+                int slot = LongHashing.mix(oldKeys[j]) & mask;
+                while (keys[slot] != LongHashing.FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[j];
+                values[slot] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * 键值对处理
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,254 @@
+package org.taiji.geo.tool.geohash;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * 以geohash比特串为键, 对象为值的映射, 适合按块分组
+ * 开放寻址, 线性探测, 键以原始类型保存, 不装箱
+ * <p>
+ * 非线程安全
+ *
+ * @author tim
+ * @param <V> 值类型
+ * @see LongHashing
+ */
+public class GeoHashLongToObjectMap<V> {
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+    private boolean hasFree;
+    private V freeValue;
+
+    public GeoHashLongToObjectMap() {
+        this(LongHashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize 预计的键数, 达到该数量前不扩容
+     */
+    public GeoHashLongToObjectMap(int expectedSize) {
+        allocate(LongHashing.capacity(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == LongHashing.FREE) {
+            return hasFree;
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 键对应的值, 不存在时返回null
+     */
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == LongHashing.FREE) {
+            return hasFree ? freeValue : defaultValue;
+        }
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @param key   比特串
+     * @param value 值
+     * @return 原来的值, 不存在时返回null
+     */
+    public V put(long key, V value) {
+        if (key == LongHashing.FREE) {
+            V old = freeValue;
+            if (!hasFree) {
+                hasFree = true;
+                size++;
+            }
+            freeValue = value;
+            return old;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                V old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, value);
+        return null;
+    }
+
+    /**
+     * 键不存在时用function生成值并保存
+     *
+     * @param key      比特串
+     * @param function 由键生成值
+     * @return 键对应的值
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        if (key == LongHashing.FREE) {
+            if (!hasFree) {
+                freeValue = function.apply(key);
+                hasFree = true;
+                size++;
+            }
+            return freeValue;
+        }
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        V value = function.apply(key);
+        insert(slot, key, value);
+        return value;
+    }
+
+    /**
+     * @param key 比特串
+     * @return 删除的值, 不存在时返回null
+     */
+    public V remove(long key) {
+        if (key == LongHashing.FREE) {
+            if (!hasFree) {
+                return null;
+            }
+            hasFree = false;
+            size--;
+            V old = freeValue;
+            freeValue = null;
+            return old;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V old = values[slot];
+        shift(slot);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, LongHashing.FREE);
+        Arrays.fill(values, null);
+        hasFree = false;
+        freeValue = null;
+        size = 0;
+    }
+
+    /**
+     * 遍历全部键值对, 顺序不确定
+     *
+     * @param action 键值对处理
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasFree) {
+            action.accept(LongHashing.FREE, freeValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != LongHashing.FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * 遍历全部键, 顺序不确定
+     *
+     * @param action 键处理
+     */
+    public void forEachKey(LongConsumer action) {
+        forEach((key, value) -> action.accept(key));
+    }
+
+    private int find(long key) {
+        int slot = LongHashing.mix(key) & mask;
+        while (keys[slot] != LongHashing.FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int slot, long key, V value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(LongHashing.grow(keys.length));
+        }
+    }
+
+    /**
+     * 删除slot处的键值对, 把其后同一簇中的键值对前移, 不留墓碑
+     */
+    private void shift(int slot) {
+        int gap = slot;
+        int i = (gap + 1) & mask;
+        while (keys[i] != LongHashing.FREE) {
+            if (LongHashing.canShift(gap, i, LongHashing.mix(keys[i]) & mask, mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = LongHashing.FREE;
+        values[gap] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V[] newArray(int capacity) {
+        return (V[]) new Object[capacity];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = newArray(capacity);
+        mask = capacity - 1;
+        threshold = LongHashing.threshold(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != LongHashing.FREE) {
+                int slot = LongHashing.mix(oldKeys[j]) & mask;
+                while (keys[slot] != LongHashing.FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[j];
+                values[slot] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * 键值对处理
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
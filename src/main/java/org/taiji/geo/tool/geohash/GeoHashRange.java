@@ -0,0 +1,60 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * geohash比特串的连续区间[start, end)
+ * 用于在按{@link GeoHash#toBits(double, double)}排序的存储中顺序扫描
+ *
+ * @author tim
+ */
+public final class GeoHashRange {
+    private final long start;
+    private final long end;
+
+    public GeoHashRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * 区间内的比特串个数
+     *
+     * @return long
+     */
+    public long size() {
+        return end - start;
+    }
+
+    public boolean contains(long bits) {
+        return bits >= start && bits < end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GeoHashRange)) {
+            return false;
+        }
+        GeoHashRange range = (GeoHashRange) o;
+        return start == range.start && end == range.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
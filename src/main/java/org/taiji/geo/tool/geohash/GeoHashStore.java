@@ -0,0 +1,493 @@
+package org.taiji.geo.tool.geohash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 基于内存映射文件的只读点存储, 用于超出堆内存的大数据集
+ * 文件中的记录(geohash比特串, 纬度, 经度, id)按比特串排序, 查询直接在映射的页面上二分查找和顺序扫描,
+ * 打开文件只需映射, 无需反序列化
+ * <p>
+ * 文件格式(大端序):
+ * <pre>
+ * 头部 32字节: magic(int) version(int) charLen(int) length(int) count(long) 保留(long)
+ * 记录 32字节: bits(long) lat(double) lng(double) id(long)
+ * </pre>
+ * 文件按1GB分段映射, 记录不跨段
+ *
+ * @author tim
+ */
+public class GeoHashStore implements Closeable {
+    private static final int MAGIC = 0x47485053; // GHPS
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int SEGMENT_SHIFT = 25; // 每段2^25条记录, 即1GB
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final GeoHash geoHash;
+    private final long size;
+
+    private GeoHashStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("not a geohash store file.");
+        }
+        this.geoHash = GeoHash.valueOf(header.getInt(8), header.getInt(12));
+        this.size = header.getLong(16);
+        if (channel.size() < HEADER_SIZE + size * RECORD_SIZE) {
+            throw new IOException("geohash store file is truncated.");
+        }
+        int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long from = (long) i << SEGMENT_SHIFT;
+            long records = Math.min(size - from, 1L << SEGMENT_SHIFT);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + from * RECORD_SIZE, records * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * 打开存储文件
+     *
+     * @param path 文件路径
+     * @return GeoHashStore
+     * @throws IOException 文件不存在或格式错误
+     */
+    public static GeoHashStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new GeoHashStore(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建存储文件的写入器
+     *
+     * @param path    文件路径
+     * @param geoHash 键的编码精度, 比特数必须小于64
+     * @return {@link Writer}
+     */
+    public static Writer writer(Path path, GeoHash geoHash) {
+        return new Writer(path, geoHash, Writer.DEFAULT_CHUNK, Writer.MAX_FAN_IN);
+    }
+
+    /**
+     * 创建存储文件的写入器
+     *
+     * @param path    文件路径
+     * @param geoHash 键的编码精度, 比特数必须小于64
+     * @param chunk   内存中排序的记录数, 超出后写入临时文件, 最后归并
+     * @return {@link Writer}
+     */
+    public static Writer writer(Path path, GeoHash geoHash, int chunk) {
+        return new Writer(path, geoHash, chunk, Writer.MAX_FAN_IN);
+    }
+
+    static Writer writer(Path path, GeoHash geoHash, int chunk, int fanIn) {
+        return new Writer(path, geoHash, chunk, fanIn);
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getBits(long index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    public double getLat(long index) {
+        return segment(index).getDouble(offset(index) + 8);
+    }
+
+    public double getLng(long index) {
+        return segment(index).getDouble(offset(index) + 16);
+    }
+
+    public long getId(long index) {
+        return segment(index).getLong(offset(index) + 24);
+    }
+
+    /**
+     * 第一个比特串不小于bits的记录下标
+     *
+     * @param bits 比特串
+     * @return long
+     */
+    public long lowerBound(long bits) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (getBits(mid) < bits) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 顺序扫描比特串在[start, end)内的记录
+     *
+     * @param start    起始比特串(包含)
+     * @param end      结束比特串(不包含)
+     * @param consumer 记录处理
+     */
+    public void scan(long start, long end, PointConsumer consumer) {
+        for (long i = lowerBound(start); i < size; i++) {
+            MappedByteBuffer segment = segment(i);
+            int offset = offset(i);
+            if (segment.getLong(offset) >= end) {
+                break;
+            }
+            consumer.accept(segment.getLong(offset + 24), segment.getDouble(offset + 8), segment.getDouble(offset + 16));
+        }
+    }
+
+    /**
+     * 顺序扫描区间内的记录
+     *
+     * @param range    比特串区间, 如{@link RangeCoverer}的输出
+     * @param consumer 记录处理
+     */
+    public void scan(GeoHashRange range, PointConsumer consumer) {
+        scan(range.getStart(), range.getEnd(), consumer);
+    }
+
+    /**
+     * 半径检索
+     *
+     * @param lat    圆心纬度
+     * @param lng    圆心经度
+     * @param radius 半径, 单位: 米
+     * @return 圆内记录的id, 无序
+     */
+    public long[] within(double lat, double lng, double radius) {
+        LongList result = new LongList();
+        int bitsLength = geoHash.getBitsLength();
+        CircleCoverer coverer = CircleCoverer.forRadius(geoHash, radius, GeoHashIndex.COVER_CELLS);
+        PreparedOrigin origin = new PreparedOrigin(lat, lng);
+        for (CircleCoverer.Cell cell : coverer.coverCells(lat, lng, radius)) {
+            int shift = bitsLength - cell.length * geoHash.getCharBitsLength();
+            scan(cell.bits << shift, (cell.bits + 1) << shift, (id, pointLat, pointLng) -> {
+                if (origin.within(pointLat, pointLng, radius)) {
+                    result.add(id);
+                }
+            });
+        }
+        return result.toArray();
+    }
+
+    /**
+     * 关闭文件
+     * Java 8无法主动解除映射, 映射的内存在缓冲区被回收后释放
+     *
+     * @throws IOException 关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index & SEGMENT_MASK) * RECORD_SIZE;
+    }
+
+    /**
+     * 记录处理, 不产生临时对象
+     */
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(long id, double lat, double lng);
+    }
+
+    /**
+     * 存储文件写入器
+     * 记录可按任意顺序写入, 每积累chunk条记录在内存中排序并写入临时文件, 关闭时多路归并成最终文件;
+     * 临时文件超过{@link #MAX_FAN_IN}个时先分组归并成较大的临时文件, 同时打开的文件数和读缓冲不随数据量增长
+     */
+    public static class Writer implements Closeable {
+        static final int DEFAULT_CHUNK = 1 << 20;
+
+        /**
+         * 一次归并同时打开的临时文件数上限
+         */
+        static final int MAX_FAN_IN = 64;
+
+        private final Path path;
+        private final GeoHash geoHash;
+        private final long[] keys;
+        private final double[] lats;
+        private final double[] lngs;
+        private final long[] ids;
+        private final List<Path> runs = new ArrayList<>();
+        private final int fanIn;
+        private int buffered;
+        private long count;
+        private boolean closed;
+
+        private Writer(Path path, GeoHash geoHash, int chunk, int fanIn) {
+            if (geoHash.getBitsLength() >= 64) {
+                throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+            }
+            if (chunk <= 0) {
+                throw new InvalidParameterException("chunk expected to be positive, " + chunk + " found.");
+            }
+            if (fanIn < 2) {
+                throw new InvalidParameterException("fan-in expected to be at least 2, " + fanIn + " found.");
+            }
+            this.fanIn = fanIn;
+            this.path = path;
+            this.geoHash = geoHash;
+            this.keys = new long[chunk];
+            this.lats = new double[chunk];
+            this.lngs = new double[chunk];
+            this.ids = new long[chunk];
+        }
+
+        /**
+         * 写入一条记录
+         *
+         * @param id  id
+         * @param lat 纬度
+         * @param lng 经度
+         * @throws IOException 写临时文件失败
+         */
+        public void add(long id, double lat, double lng) throws IOException {
+            if (buffered == keys.length) {
+                spill();
+            }
+            keys[buffered] = geoHash.toBits(lat, lng);
+            lats[buffered] = lat;
+            lngs[buffered] = lng;
+            ids[buffered] = id;
+            buffered++;
+            count++;
+        }
+
+        /**
+         * 归并并写出最终文件, 删除临时文件
+         *
+         * @throws IOException 写文件失败
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(geoHash.getCharBitsLength());
+                out.writeInt(geoHash.getLength());
+                out.writeLong(count);
+                out.writeLong(0);
+                if (runs.isEmpty()) {
+                    sort(0, buffered - 1);
+                    writeRecords(out);
+                } else {
+                    if (buffered > 0) {
+                        spill();
+                    }
+                    while (runs.size() > fanIn) {
+                        mergeRuns();
+                    }
+                    merge(runs, out);
+                }
+            } finally {
+                for (Path run : runs) {
+                    Files.deleteIfExists(run);
+                }
+            }
+        }
+
+        private void spill() throws IOException {
+            sort(0, buffered - 1);
+            Path run = createRun();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                writeRecords(out);
+            }
+            buffered = 0;
+        }
+
+        /**
+         * 把最早的fanIn个临时文件归并成一个, 追加到末尾, 每条记录被归并的次数约为log(临时文件数)/log(fanIn)
+         */
+        private void mergeRuns() throws IOException {
+            List<Path> group = new ArrayList<>(runs.subList(0, fanIn));
+            Path run = createRun();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                merge(group, out);
+            }
+            for (Path merged : group) {
+                Files.delete(merged);
+            }
+            runs.subList(0, fanIn).clear();
+        }
+
+        private Path createRun() throws IOException {
+            Path run = Files.createTempFile(path.toAbsolutePath().getParent(), "geohash", ".run");
+            runs.add(run);
+            return run;
+        }
+
+        private void writeRecords(DataOutputStream out) throws IOException {
+            for (int i = 0; i < buffered; i++) {
+                out.writeLong(keys[i]);
+                out.writeDouble(lats[i]);
+                out.writeDouble(lngs[i]);
+                out.writeLong(ids[i]);
+            }
+        }
+
+        private void merge(List<Path> sources, OutputStream output) throws IOException {
+            DataOutputStream out = new DataOutputStream(output);
+            PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> Long.compare(a.bits, b.bits));
+            List<Run> opened = new ArrayList<>();
+            try {
+                for (Path path : sources) {
+                    Run run = new Run(Files.newInputStream(path));
+                    opened.add(run);
+                    if (run.next()) {
+                        queue.add(run);
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    Run run = queue.poll();
+                    out.writeLong(run.bits);
+                    out.writeDouble(run.lat);
+                    out.writeDouble(run.lng);
+                    out.writeLong(run.id);
+                    if (run.next()) {
+                        queue.add(run);
+                    }
+                }
+                out.flush();
+            } finally {
+                for (Run run : opened) {
+                    run.in.close();
+                }
+            }
+        }
+
+        /**
+         * 按比特串对四个并列数组快速排序
+         */
+        private void sort(int low, int high) {
+            while (high - low > 16) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < keys[low]) {
+                    swap(mid, low);
+                }
+                if (keys[high] < keys[low]) {
+                    swap(high, low);
+                }
+                if (keys[high] < keys[mid]) {
+                    swap(high, mid);
+                }
+                long pivot = keys[mid];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (keys[i] < pivot) {
+                        i++;
+                    }
+                    while (keys[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                // 递归处理较短的一侧, 循环处理较长的一侧, 限制栈深度
+                if (j - low < high - i) {
+                    sort(low, j);
+                    low = i;
+                } else {
+                    sort(i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && keys[j] < keys[j - 1]; j--) {
+                    swap(j, j - 1);
+                }
+            }
+        }
+
+        private void swap(int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            double lat = lats[i];
+            lats[i] = lats[j];
+            lats[j] = lat;
+            double lng = lngs[i];
+            lngs[i] = lngs[j];
+            lngs[j] = lng;
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+    }
+
+    /**
+     * 归并时的临时文件游标
+     */
+    private static final class Run {
+        private final DataInputStream in;
+        private long bits;
+        private double lat;
+        private double lng;
+        private long id;
+
+        Run(InputStream in) {
+            this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        }
+
+        boolean next() throws IOException {
+            try {
+                bits = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            lat = in.readDouble();
+            lng = in.readDouble();
+            id = in.readLong();
+            return true;
+        }
+    }
+}
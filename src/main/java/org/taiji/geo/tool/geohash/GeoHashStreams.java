@@ -0,0 +1,234 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * java.util.stream的geohash编码
+ * 上游元素按批读入复用的列式缓冲区, 整批交给{@link BatchCodec}编码, 下游按需逐个取出比特串,
+ * 避免在map()中逐个编码时每个元素产生的字符串和临时对象
+ * <p>
+ * 返回的流是顺序流; 转为并行流时按{@link Spliterators.AbstractLongSpliterator}的方式分割,
+ * 即由当前线程顺序编码出一段比特串复制到数组交给其他线程, 上游的读取和编码始终是顺序的
+ *
+ * @author tim
+ */
+public final class GeoHashStreams {
+    /**
+     * 默认的批大小
+     */
+    public static final int DEFAULT_BATCH = 1 << 10;
+
+    private GeoHashStreams() {
+    }
+
+    /**
+     * 把位置流编码成比特串流
+     *
+     * @param geoHash   编码精度
+     * @param positions 位置流
+     * @return LongStream 与位置一一对应的比特串
+     */
+    public static LongStream toBits(GeoHash geoHash, Stream<Position> positions) {
+        Spliterator<Position> source = positions.spliterator();
+        BatchSpliterator spliterator = new BatchSpliterator(BatchCodec.of(geoHash), DEFAULT_BATCH, source.estimateSize(),
+            source.characteristics()) {
+            @Override
+            boolean read() {
+                return source.tryAdvance(position -> add(position.getLat(), position.getLng()));
+            }
+        };
+        return StreamSupport.longStream(spliterator, false).onClose(positions::close);
+    }
+
+    /**
+     * 把纬度流和经度流按顺序配对后编码成比特串流
+     *
+     * @param geoHash 编码精度
+     * @param lats    纬度流
+     * @param lngs    经度流, 元素数必须与纬度流相同
+     * @return LongStream 比特串
+     * @throws InvalidParameterException 两个流的元素数不同, 元素数已知时立即抛出, 否则在遍历到末尾时抛出
+     */
+    public static LongStream toBits(GeoHash geoHash, DoubleStream lats, DoubleStream lngs) {
+        Spliterator.OfDouble latSource = lats.spliterator();
+        Spliterator.OfDouble lngSource = lngs.spliterator();
+        int characteristics = latSource.characteristics() & lngSource.characteristics();
+        if ((characteristics & Spliterator.SIZED) != 0 && latSource.getExactSizeIfKnown() != lngSource.getExactSizeIfKnown()) {
+            throw new InvalidParameterException("lats and lngs expected to have the same size, "
+                + latSource.getExactSizeIfKnown() + " and " + lngSource.getExactSizeIfKnown() + " found.");
+        }
+        DoubleCell lat = new DoubleCell();
+        DoubleCell lng = new DoubleCell();
+        BatchSpliterator spliterator = new BatchSpliterator(BatchCodec.of(geoHash), DEFAULT_BATCH,
+            Math.min(latSource.estimateSize(), lngSource.estimateSize()), characteristics) {
+            @Override
+            boolean read() {
+                boolean hasLat = latSource.tryAdvance(lat);
+                boolean hasLng = lngSource.tryAdvance(lng);
+                if (hasLat != hasLng) {
+                    throw new InvalidParameterException("lats and lngs expected to have the same size.");
+                }
+                if (hasLat) {
+                    add(lat.value, lng.value);
+                }
+                return hasLat;
+            }
+        };
+        return StreamSupport.longStream(spliterator, false).onClose(() -> {
+            try {
+                lats.close();
+            } finally {
+                lngs.close();
+            }
+        });
+    }
+
+    /**
+     * 收集位置并整批编码成比特串数组, 支持并行流
+     *
+     * @param geoHash 编码精度
+     * @return Collector 结果与流中位置的顺序一致
+     */
+    public static Collector<Position, ?, long[]> toBitsArray(GeoHash geoHash) {
+        BatchCodec codec = BatchCodec.of(geoHash);
+        return Collector.of(
+            Columns::new,
+            (columns, position) -> columns.add(position.getLat(), position.getLng()),
+            Columns::addAll,
+            columns -> columns.toBits(codec));
+    }
+
+    /**
+     * 按批编码的比特串Spliterator, 缓冲区在批之间复用
+     */
+    private abstract static class BatchSpliterator extends Spliterators.AbstractLongSpliterator {
+        private final BatchCodec codec;
+        private final double[] lats;
+        private final double[] lngs;
+        private final long[] bits;
+        private int size;
+        private int index;
+
+        BatchSpliterator(BatchCodec codec, int batch, long estimate, int characteristics) {
+            super(estimate, (characteristics & (Spliterator.ORDERED | Spliterator.SIZED)) | Spliterator.NONNULL);
+            this.codec = codec;
+            this.lats = new double[batch];
+            this.lngs = new double[batch];
+            this.bits = new long[batch];
+        }
+
+        /**
+         * 从上游读取一个元素, 调用{@link #add(double, double)}写入缓冲区
+         *
+         * @return 上游已耗尽时返回false
+         */
+        abstract boolean read();
+
+        final void add(double lat, double lng) {
+            lats[size] = lat;
+            lngs[size] = lng;
+            size++;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index == size && !fill()) {
+                return false;
+            }
+            action.accept(bits[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            do {
+                while (index < size) {
+                    action.accept(bits[index++]);
+                }
+            } while (fill());
+        }
+
+        private boolean fill() {
+            size = 0;
+            index = 0;
+            while (size < lats.length) {
+                if (!read()) {
+                    break;
+                }
+            }
+            if (size == 0) {
+                return false;
+            }
+            if (size == lats.length) {
+                codec.toBits(lats, lngs, bits);
+            } else {
+                // 最后一批不足时按实际长度编码
+                codec.getGeoHash().toBits(lats, lngs, bits, 0, size);
+            }
+            return true;
+        }
+    }
+
+    private static final class DoubleCell implements DoubleConsumer {
+        double value;
+
+        @Override
+        public void accept(double value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 收集器的列式中间结果
+     */
+    private static final class Columns {
+        private double[] lats = new double[16];
+        private double[] lngs = new double[16];
+        private int size;
+
+        void add(double lat, double lng) {
+            if (size == lats.length) {
+                grow(size + 1);
+            }
+            lats[size] = lat;
+            lngs[size] = lng;
+            size++;
+        }
+
+        Columns addAll(Columns other) {
+            grow(size + other.size);
+            System.arraycopy(other.lats, 0, lats, size, other.size);
+            System.arraycopy(other.lngs, 0, lngs, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        long[] toBits(BatchCodec codec) {
+            long[] bits = new long[size];
+            if (size == lats.length) {
+                codec.toBits(lats, lngs, bits);
+            } else {
+                codec.getGeoHash().toBits(lats, lngs, bits, 0, size);
+            }
+            return bits;
+        }
+
+        private void grow(int capacity) {
+            if (capacity > lats.length) {
+                int length = Math.max(capacity, lats.length * 2);
+                lats = Arrays.copyOf(lats, length);
+                lngs = Arrays.copyOf(lngs, length);
+            }
+        }
+    }
+}
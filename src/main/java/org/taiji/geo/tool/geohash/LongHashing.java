@@ -0,0 +1,82 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+
+/**
+ * 以geohash比特串为键的开放寻址哈希表的公共部分
+ * <p>
+ * 相邻块的比特串只有低位不同, 直接取低位作为槽位会使一片区域的块挤在连续的槽中, 线性探测时形成长簇;
+ * 取高位则同一区域的块全部落在同一个槽. 因此先用MurmurHash3的fmix64把全部64位充分混合, 再取低位
+ *
+ * @author tim
+ */
+final class LongHashing {
+    /**
+     * 空槽的键, 值为0的键单独保存
+     */
+    static final long FREE = 0;
+
+    static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private LongHashing() {
+    }
+
+    /**
+     * MurmurHash3的64位混合函数, 取低32位作为槽位的哈希
+     */
+    static int mix(long key) {
+        return (int) mix64(key);
+    }
+
+    /**
+     * MurmurHash3的64位混合函数
+     * 槽位最多用到低30位, 需要在表外再分组时(如分段锁)应取高位, 否则同一组的键只占一部分槽位
+     */
+    static long mix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 容纳expectedSize个键所需的槽数, 2的幂, 装载因子不超过0.75
+     */
+    static int capacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new InvalidParameterException("expected size expected to be non-negative, " + expectedSize + " found.");
+        }
+        long capacity = Long.highestOneBit(Math.max(2, (long) expectedSize * 4 / 3 + 1) * 2 - 1);
+        return (int) Math.min(capacity, MAX_CAPACITY);
+    }
+
+    /**
+     * 槽数为capacity时的扩容阈值
+     */
+    static int threshold(int capacity) {
+        if (capacity == MAX_CAPACITY) {
+            return MAX_CAPACITY - 1;
+        }
+        return capacity / 4 * 3;
+    }
+
+    /**
+     * 扩容后的槽数
+     */
+    static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("hash table is full, capacity " + capacity + ".");
+        }
+        return capacity * 2;
+    }
+
+    /**
+     * 删除后回填时, 位于slot的键能否移到gap: 其理想槽位不在(gap, slot]区间内
+     */
+    static boolean canShift(int gap, int slot, int ideal, int mask) {
+        return ((slot - ideal) & mask) >= ((slot - gap) & mask);
+    }
+}
@@ -0,0 +1,52 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * Morton码(Z-order)比特交错
+ * 采用magic mask逐级展开/收缩, 每个方向固定5次移位与运算, 无循环无分支
+ *
+ * @author tim
+ * @see <a href="https://graphics.stanford.edu/~seander/bithacks.html#InterleaveBMN">Interleave bits by Binary Magic Numbers</a>
+ */
+final class Morton {
+    private static final long M1 = 0x5555555555555555L;
+    private static final long M2 = 0x3333333333333333L;
+    private static final long M4 = 0x0F0F0F0F0F0F0F0FL;
+    private static final long M8 = 0x00FF00FF00FF00FFL;
+    private static final long M16 = 0x0000FFFF0000FFFFL;
+    private static final long M32 = 0x00000000FFFFFFFFL;
+
+    private Morton() {
+    }
+
+    /**
+     * 把32位整数的第i位展开到长整型的第2i位, 奇数位补0
+     *
+     * @param bits 输入比特串
+     * @return long
+     */
+    static long spread(int bits) {
+        long v = bits & M32;
+        v = (v | (v << 16)) & M16;
+        v = (v | (v << 8)) & M8;
+        v = (v | (v << 4)) & M4;
+        v = (v | (v << 2)) & M2;
+        v = (v | (v << 1)) & M1;
+        return v;
+    }
+
+    /**
+     * {@link #spread(int)}的逆运算, 取出长整型的全部偶数位
+     *
+     * @param bits 输入比特串
+     * @return int
+     */
+    static int squash(long bits) {
+        long v = bits & M1;
+        v = (v | (v >>> 1)) & M2;
+        v = (v | (v >>> 2)) & M4;
+        v = (v | (v >>> 4)) & M8;
+        v = (v | (v >>> 8)) & M16;
+        v = (v | (v >>> 16)) & M32;
+        return (int) v;
+    }
+}
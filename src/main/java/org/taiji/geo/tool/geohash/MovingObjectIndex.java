@@ -0,0 +1,237 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+
+/**
+ * 线程安全的移动对象索引
+ * 对象按位置所在的geohash块分桶, 块以{@link GeoHash#toBits(double, double)}为键保存在跳表中,
+ * 任意长度的覆盖块都对应一段连续的键; 桶内的id存在{@link GeoHashLongSet}中, 由桶自身的锁保护
+ * <p>
+ * 对象的位置按id的哈希分段保存在{@link GeoHashLongToObjectMap}中, 更新只锁定所在分段, id不装箱;
+ * 对象仍在原块内时直接修改原位置, 不分配对象也不触碰桶; 跨块时先加入新桶再移出旧桶
+ * <p>
+ * 检索在桶锁内复制id, 释放后再逐个在分段锁内读取当前位置, 以当前块和当前坐标过滤;
+ * 与更新并发执行时返回弱一致的结果, 扫描期间跨块移动的对象可能被看到两次, 结果去重后返回
+ *
+ * @author tim
+ */
+public class MovingObjectIndex {
+    private final GeoHash geoHash;
+    private final int bitsLength;
+    private final Stripe[] stripes;
+    private final ConcurrentSkipListMap<Long, Bucket> cells = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param geoHash 分桶的块精度, 比特数必须小于64, 块宜略小于常用的检索半径, 如{@link Base32#getBase32(int) Base32.getBase32(6)}
+     */
+    public MovingObjectIndex(GeoHash geoHash) {
+        if (geoHash.getBitsLength() >= 64) {
+            throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+        }
+        this.geoHash = geoHash;
+        this.bitsLength = geoHash.getBitsLength();
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.objects.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 非空块的数量
+     */
+    int cellCount() {
+        return cells.size();
+    }
+
+    /**
+     * 写入或更新对象的位置
+     *
+     * @param id  对象id
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 对象进入了新的块(包括新对象)时返回true
+     */
+    public boolean update(long id, double lat, double lng) {
+        long cell = geoHash.toBits(lat, lng);
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            Location location = stripe.objects.get(id);
+            if (location == null) {
+                add(cell, id);
+                stripe.objects.put(id, new Location(lat, lng, cell));
+                return true;
+            }
+            location.lat = lat;
+            location.lng = lng;
+            if (location.cell == cell) {
+                return false;
+            }
+            add(cell, id);
+            remove(location.cell, id);
+            location.cell = cell;
+            return true;
+        }
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param id 对象id
+     * @return 对象存在时返回true
+     */
+    public boolean remove(long id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            Location location = stripe.objects.remove(id);
+            if (location == null) {
+                return false;
+            }
+            remove(location.cell, id);
+            return true;
+        }
+    }
+
+    /**
+     * 对象的当前位置
+     *
+     * @param id 对象id
+     * @return {纬度, 经度}, 对象不存在时返回null
+     */
+    public double[] get(long id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            Location location = stripe.objects.get(id);
+            return location == null ? null : new double[]{location.lat, location.lng};
+        }
+    }
+
+    /**
+     * 半径检索
+     *
+     * @param lat    圆心纬度
+     * @param lng    圆心经度
+     * @param radius 半径, 单位: 米
+     * @return 圆内对象的id, 升序
+     */
+    public long[] within(double lat, double lng, double radius) {
+        LongList result = new LongList();
+        LongList candidates = new LongList();
+        LongConsumer collector = candidates::add;
+        CircleCoverer coverer = CircleCoverer.forRadius(geoHash, radius, GeoHashIndex.COVER_CELLS);
+        PreparedOrigin origin = new PreparedOrigin(lat, lng);
+        for (CircleCoverer.Cell cell : coverer.coverCells(lat, lng, radius)) {
+            int shift = bitsLength - cell.length * geoHash.getCharBitsLength();
+            ConcurrentNavigableMap<Long, Bucket> range = cells.subMap(cell.bits << shift, (cell.bits + 1) << shift);
+            for (Map.Entry<Long, Bucket> entry : range.entrySet()) {
+                long key = entry.getKey();
+                Bucket bucket = entry.getValue();
+                candidates.clear();
+                synchronized (bucket) {
+                    bucket.ids.forEach(collector);
+                }
+                for (int i = 0; i < candidates.size(); i++) {
+                    long id = candidates.get(i);
+                    Stripe stripe = stripe(id);
+                    synchronized (stripe) {
+                        Location location = stripe.objects.get(id);
+                        // 跨块移动的对象可能短暂地同时出现在两个桶里, 只在当前块中计入
+                        if (location != null && location.cell == key
+                            && origin.within(location.lat, location.lng, radius)) {
+                            result.add(id);
+                        }
+                    }
+                }
+            }
+        }
+        return distinct(result.toArray());
+    }
+
+    private static long[] distinct(long[] ids) {
+        Arrays.sort(ids);
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (size == 0 || ids[size - 1] != ids[i]) {
+                ids[size++] = ids[i];
+            }
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    private Stripe stripe(long id) {
+        return stripes[(int) (LongHashing.mix64(id) >>> 48) & (stripes.length - 1)];
+    }
+
+    private void add(long cell, long id) {
+        while (true) {
+            Bucket bucket = cells.computeIfAbsent(cell, key -> new Bucket());
+            synchronized (bucket) {
+                if (!bucket.removed) {
+                    bucket.ids.add(id);
+                    return;
+                }
+            }
+            // 桶已被清空移除, 帮助移除后重试
+            cells.remove(cell, bucket);
+        }
+    }
+
+    private void remove(long cell, long id) {
+        Bucket bucket = cells.get(cell);
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            if (!bucket.ids.remove(id) || !bucket.ids.isEmpty()) {
+                return;
+            }
+            bucket.removed = true;
+        }
+        cells.remove(cell, bucket);
+    }
+
+    /**
+     * 对象的位置和所在块, 由所在分段的锁保护
+     */
+    private static final class Location {
+        double lat;
+        double lng;
+        long cell;
+
+        Location(double lat, double lng, long cell) {
+            this.lat = lat;
+            this.lng = lng;
+            this.cell = cell;
+        }
+    }
+
+    /**
+     * 一部分对象的位置, 以自身为锁
+     */
+    private static final class Stripe {
+        final GeoHashLongToObjectMap<Location> objects = new GeoHashLongToObjectMap<>();
+    }
+
+    /**
+     * 一个块内的对象, 以自身为锁
+     * 成员清空后标记为已移除, 已移除的桶不再接受加入, 由加入方换用新桶
+     */
+    private static final class Bucket {
+        final GeoHashLongSet ids = new GeoHashLongSet();
+        boolean removed;
+    }
+}
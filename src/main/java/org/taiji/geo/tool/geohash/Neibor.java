@@ -6,6 +6,20 @@ package org.taiji.geo.tool.geohash;
  * @author tim
  */
 public class Neibor {
+    /**
+     * {@link #toArray()}及{@link GeoHash#neighbors(long, long[])}中各方块的下标
+     */
+    public static final int NORTHWEST = 0;
+    public static final int NORTH = 1;
+    public static final int NORTHEAST = 2;
+    public static final int WEST = 3;
+    public static final int CENTER = 4;
+    public static final int EAST = 5;
+    public static final int SOUTHWEST = 6;
+    public static final int SOUTH = 7;
+    public static final int SOUTHEAST = 8;
+    public static final int SIZE = 9;
+
     private String center;
     private String west;
     private String east;
@@ -104,6 +118,7 @@ public class Neibor {
             getCenter(),
             getEast(),
             getSouthwest(),
+            getSouth(),
             getSoutheast(),
         };
     }
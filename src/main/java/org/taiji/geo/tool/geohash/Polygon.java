@@ -0,0 +1,112 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+
+/**
+ * 简单多边形, 在经纬度平面上按直线边计算
+ * 顶点按顺序给出, 首尾自动闭合, 不支持跨越180°经线
+ *
+ * @author tim
+ */
+public class Polygon implements Region {
+    private final double[] lats;
+    private final double[] lngs;
+
+    /**
+     * @param lats 顶点纬度
+     * @param lngs 顶点经度
+     */
+    public Polygon(double[] lats, double[] lngs) {
+        if (lats.length != lngs.length || lats.length < 3) {
+            throw new InvalidParameterException("polygon expected to have at least 3 vertices, " + lats.length + ", " + lngs.length + " found.");
+        }
+        this.lats = lats.clone();
+        this.lngs = lngs.clone();
+    }
+
+    /**
+     * 点是否在多边形内, 射线法
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return boolean
+     */
+    public boolean contains(double lat, double lng) {
+        boolean inside = false;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if ((lats[i] > lat) != (lats[j] > lat)
+                && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    @Override
+    public boolean contains(double[] box) {
+        return contains(box[0], box[2]) && contains(box[0], box[3])
+            && contains(box[1], box[2]) && contains(box[1], box[3])
+            && !crosses(box);
+    }
+
+    @Override
+    public boolean intersects(double[] box) {
+        return contains(box[0], box[2]) || crosses(box);
+    }
+
+    /**
+     * 是否有边与块(含边界)相交
+     */
+    private boolean crosses(double[] box) {
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if (clip(lngs[j], lats[j], lngs[i], lats[i], box)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Liang-Barsky线段裁剪, 判断线段是否与矩形相交
+     * 四条边的(p, q)展开成局部变量, 覆盖时每条边对每个候选块都要调用, 不分配数组
+     */
+    private static boolean clip(double x0, double y0, double x1, double y1, double[] box) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double t0 = 0;
+        double t1 = 1;
+        // 左右两条边: p = -dx, dx
+        if (dx == 0) {
+            if (x0 < box[2] || x0 > box[3]) {
+                return false;
+            }
+        } else {
+            double left = (box[2] - x0) / dx;
+            double right = (box[3] - x0) / dx;
+            if (dx > 0) {
+                t0 = Math.max(t0, left);
+                t1 = Math.min(t1, right);
+            } else {
+                t0 = Math.max(t0, right);
+                t1 = Math.min(t1, left);
+            }
+            if (t0 > t1) {
+                return false;
+            }
+        }
+        // 下上两条边: p = -dy, dy
+        if (dy == 0) {
+            return y0 >= box[0] && y0 <= box[1];
+        }
+        double bottom = (box[0] - y0) / dy;
+        double top = (box[1] - y0) / dy;
+        if (dy > 0) {
+            t0 = Math.max(t0, bottom);
+            t1 = Math.min(t1, top);
+        } else {
+            t0 = Math.max(t0, top);
+            t1 = Math.min(t1, bottom);
+        }
+        return t0 <= t1;
+    }
+}
@@ -0,0 +1,127 @@
+package org.taiji.geo.tool.geohash;
+
+import static java.lang.Math.*;
+
+/**
+ * 预处理的距离计算原点
+ * 半径检索中原点固定而候选点很多, 原点纬度的sin和cos只计算一次, 对每个候选点:
+ * <ul>
+ * <li>{@link #harvesineDistance(double, double)}: 省去原点的三角函数</li>
+ * <li>{@link #squaredDistance(double, double)}: 不用三角函数和sqrt, 平均纬度的cos用原点处的二阶展开代替, 误差同
+ * {@link GeoCalculator#equirectangularDistance(double, double, double, double)}</li>
+ * <li>{@link #within(double, double, double)}: 先用纬度差排除, 再用近似距离的平方与半径的平方比较,
+ * 只有落在误差带内的点才计算harvesine, 结果与harvesine距离比较一致</li>
+ * </ul>
+ * 不可变, 线程安全
+ *
+ * @author tim
+ */
+public final class PreparedOrigin {
+    /**
+     * 近似比较的适用半径, 单位: 米
+     */
+    static final double FAST_RADIUS = 100_000;
+
+    /**
+     * 近似比较的适用纬度, 更靠近极点时经线收敛太快
+     */
+    static final double FAST_LAT = 80;
+
+    /**
+     * 适用范围内近似距离相对误差的上界, 实测最大约为4e-4, 取5倍余量
+     */
+    static final double FAST_ERROR = 2e-3;
+
+    private static final double RADIANS = PI / 180;
+
+    private final double lat;
+    private final double lng;
+    private final double sinLat;
+    private final double cosLat;
+    private final boolean fast;
+
+    public PreparedOrigin(double lat, double lng) {
+        this.lat = lat;
+        this.lng = lng;
+        this.sinLat = sin(toRadians(lat));
+        this.cosLat = cos(toRadians(lat));
+        this.fast = abs(lat) <= FAST_LAT;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    /**
+     * harvesine距离, 与{@link GeoCalculator#harvesineDistance(double, double, double, double)}的运算顺序相同, 结果逐位一致
+     *
+     * @param foreLat 纬度
+     * @param foreLng 经度
+     * @return 距离, 单位: 米
+     */
+    public double harvesineDistance(double foreLat, double foreLng) {
+        double sinLat = sin(toRadians(abs(foreLat - lat)) / 2);
+        double sinLng = sin(toRadians(abs(foreLng - lng)) / 2);
+        double a = sinLat * sinLat + cosLat * cos(toRadians(foreLat)) * sinLng * sinLng;
+        return GeoCalculator.EARTH_DIAMETER * (2 * atan2(sqrt(a), sqrt(1 - a)));
+    }
+
+    /**
+     * 近似距离的平方, 不用三角函数
+     *
+     * @param foreLat 纬度
+     * @param foreLng 经度
+     * @return 距离的平方, 单位: 平方米
+     */
+    public double squaredDistance(double foreLat, double foreLng) {
+        double dLat = (foreLat - lat) * RADIANS;
+        double dLng = GeoCalculator.wrapLng(foreLng - lng) * RADIANS;
+        // cos(lat + dLat / 2)的二阶展开
+        double cosMid = cosLat - sinLat * dLat / 2 - cosLat * dLat * dLat / 8;
+        double x = dLng * cosMid;
+        return (x * x + dLat * dLat) * GeoCalculator.EARTH_DIAMETER * GeoCalculator.EARTH_DIAMETER;
+    }
+
+    /**
+     * 近似距离, 不用三角函数
+     *
+     * @param foreLat 纬度
+     * @param foreLng 经度
+     * @return 距离, 单位: 米
+     */
+    public double equirectangularDistance(double foreLat, double foreLng) {
+        return sqrt(squaredDistance(foreLat, foreLng));
+    }
+
+    /**
+     * 点是否在圆内, 结果与harvesineDistance(foreLat, foreLng) &lt;= radius一致
+     * 半径不超过100km且原点纬度在±80°以内时, 绝大多数点只需几次乘法即可判定
+     *
+     * @param foreLat 纬度
+     * @param foreLng 经度
+     * @param radius  半径, 单位: 米
+     * @return boolean
+     */
+    public boolean within(double foreLat, double foreLng, double radius) {
+        // 大圆距离不小于纬度差对应的弧长, 放宽一点以免运算顺序不同的舍入误差误拒恰在圆周上的点
+        if (abs(foreLat - lat) * RADIANS * GeoCalculator.EARTH_DIAMETER > radius * (1 + 1e-12)) {
+            return false;
+        }
+        if (fast && radius <= FAST_RADIUS) {
+            double squared = squaredDistance(foreLat, foreLng);
+            double inner = radius * (1 - FAST_ERROR);
+            if (squared <= inner * inner) {
+                return true;
+            }
+            double outer = radius * (1 + FAST_ERROR);
+            if (squared >= outer * outer) {
+                return false;
+            }
+        }
+        return harvesineDistance(foreLat, foreLng) <= radius;
+    }
+}
@@ -0,0 +1,171 @@
+package org.taiji.geo.tool.geohash;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把矩形或多边形区域转换成少量连续的比特串区间
+ * 存储以{@link GeoHash#toBits(double, double)}为有序键时, 区域查询变为若干次顺序扫描
+ * <p>
+ * 沿Z-order曲线逐位细分: 每个比特前缀对应一个块, 也对应键空间中的一个连续区间;
+ * 被区域完全包含的块整体输出, 与边界相交的块继续细分, 边界块超过maxCells时停止细分并整体输出;
+ * 最后合并相邻区间, 区间数仍超过maxRanges时依次填补最小的间隙, 以多扫描少量键换取更少的区间
+ *
+ * @author tim
+ */
+public class RangeCoverer {
+    private final GeoHash geoHash;
+    private final int maxRanges;
+    private final int maxCells;
+
+    /**
+     * @param geoHash   键的编码精度
+     * @param maxRanges 输出区间数上限
+     */
+    public RangeCoverer(GeoHash geoHash, int maxRanges) {
+        this(geoHash, maxRanges, Math.max(maxRanges, 1 << 10));
+    }
+
+    /**
+     * @param geoHash   键的编码精度, 比特数必须小于64
+     * @param maxRanges 输出区间数上限
+     * @param maxCells  细分时边界块数上限
+     */
+    public RangeCoverer(GeoHash geoHash, int maxRanges, int maxCells) {
+        if (geoHash.getBitsLength() >= 64) {
+            throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+        }
+        if (maxRanges <= 0 || maxCells <= 0) {
+            throw new InvalidParameterException("maxRanges and maxCells expected to be positive, " + maxRanges + ", " + maxCells + " found.");
+        }
+        this.geoHash = geoHash;
+        this.maxRanges = maxRanges;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * 矩形区域的键区间
+     *
+     * @param minLat 最小纬度
+     * @param maxLat 最大纬度
+     * @param minLng 最小经度
+     * @param maxLng 最大经度, 小于minLng时表示跨越180°经线
+     * @return 按起点排序的区间
+     */
+    public List<GeoHashRange> cover(double minLat, double maxLat, double minLng, double maxLng) {
+        return cover(Region.rectangle(minLat, maxLat, minLng, maxLng));
+    }
+
+    /**
+     * 任意区域的键区间
+     *
+     * @param region 区域, 如{@link Polygon}
+     * @return 按起点排序的区间
+     */
+    public List<GeoHashRange> cover(Region region) {
+        int total = geoHash.getBitsLength();
+        LongList starts = new LongList();
+        LongList ends = new LongList();
+        LongList current = new LongList();
+        current.add(0);
+        double[] box = new double[4];
+        for (int k = 0; current.size() > 0; k++) {
+            int shift = total - k;
+            LongList boundary = new LongList();
+            for (int i = 0; i < current.size(); i++) {
+                long prefix = current.get(i);
+                box(prefix, k, box);
+                if (!region.intersects(box)) {
+                    continue;
+                }
+                if (k == total || region.contains(box)) {
+                    starts.add(prefix << shift);
+                    ends.add((prefix + 1) << shift);
+                } else {
+                    boundary.add(prefix);
+                }
+            }
+            if (boundary.size() * 2 > maxCells) {
+                for (int i = 0; i < boundary.size(); i++) {
+                    starts.add(boundary.get(i) << shift);
+                    ends.add((boundary.get(i) + 1) << shift);
+                }
+                break;
+            }
+            current = new LongList();
+            for (int i = 0; i < boundary.size(); i++) {
+                current.add(boundary.get(i) << 1);
+                current.add((boundary.get(i) << 1) | 1);
+            }
+        }
+        return merge(starts, ends);
+    }
+
+    /**
+     * 排序并合并相邻区间, 超过上限时填补最小的间隙
+     */
+    private List<GeoHashRange> merge(LongList starts, LongList ends) {
+        int n = starts.size();
+        long[][] ranges = new long[n][];
+        for (int i = 0; i < n; i++) {
+            ranges[i] = new long[]{starts.get(i), ends.get(i)};
+        }
+        Arrays.sort(ranges, (a, b) -> Long.compare(a[0], b[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last[1] == range[0]) {
+                last[1] = range[1];
+            } else {
+                merged.add(range);
+            }
+        }
+        int excess = merged.size() - maxRanges;
+        if (excess > 0) {
+            // 第i个间隙位于merged[i]与merged[i + 1]之间
+            Integer[] gaps = new Integer[merged.size() - 1];
+            for (int i = 0; i < gaps.length; i++) {
+                gaps[i] = i;
+            }
+            Arrays.sort(gaps, (a, b) -> Long.compare(merged.get(a + 1)[0] - merged.get(a)[1], merged.get(b + 1)[0] - merged.get(b)[1]));
+            boolean[] fill = new boolean[gaps.length];
+            for (int i = 0; i < excess; i++) {
+                fill[gaps[i]] = true;
+            }
+            List<long[]> filled = new ArrayList<>();
+            for (int i = 0; i < merged.size(); i++) {
+                if (i > 0 && fill[i - 1]) {
+                    filled.get(filled.size() - 1)[1] = merged.get(i)[1];
+                } else {
+                    filled.add(merged.get(i));
+                }
+            }
+            merged.clear();
+            merged.addAll(filled);
+        }
+        List<GeoHashRange> result = new ArrayList<>(merged.size());
+        for (long[] range : merged) {
+            result.add(new GeoHashRange(range[0], range[1]));
+        }
+        return result;
+    }
+
+    /**
+     * k位比特前缀对应的块
+     * 前缀的最高位总是经度
+     */
+    static void box(long prefix, int k, double[] box) {
+        int lngTimes = (k + 1) / 2;
+        int latTimes = k / 2;
+        long lng = Morton.squash(k % 2 == 0 ? prefix >>> 1 : prefix) & 0xFFFFFFFFL;
+        long lat = Morton.squash(k % 2 == 0 ? prefix : prefix >>> 1) & 0xFFFFFFFFL;
+        double latCell = (double) (GeoHash.MAX_LAT - GeoHash.MIN_LAT) / (1L << latTimes);
+        double lngCell = (double) (GeoHash.MAX_LNG - GeoHash.MIN_LNG) / (1L << lngTimes);
+        box[0] = GeoHash.MIN_LAT + lat * latCell;
+        box[1] = box[0] + latCell;
+        box[2] = GeoHash.MIN_LNG + lng * lngCell;
+        box[3] = box[2] + lngCell;
+    }
+}
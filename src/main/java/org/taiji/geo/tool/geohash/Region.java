@@ -0,0 +1,68 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * 经纬度平面上的区域, 用于{@link RangeCoverer}判断geohash块与区域的关系
+ * 块以数组表示: 最小纬度, 最大纬度, 最小经度, 最大经度
+ *
+ * @author tim
+ */
+public interface Region {
+    /**
+     * 区域是否完全包含块
+     *
+     * @param box 块的边界
+     * @return boolean
+     */
+    boolean contains(double[] box);
+
+    /**
+     * 区域是否与块相交
+     *
+     * @param box 块的边界
+     * @return boolean
+     */
+    boolean intersects(double[] box);
+
+    /**
+     * 经纬度矩形
+     * minLng大于maxLng时表示跨越180°经线的矩形; minLat大于maxLat或有NaN时为空区域, 不抛出异常
+     *
+     * @param minLat 最小纬度
+     * @param maxLat 最大纬度
+     * @param minLng 最小经度
+     * @param maxLng 最大经度
+     * @return Region
+     */
+    static Region rectangle(double minLat, double maxLat, double minLng, double maxLng) {
+        if (minLng > maxLng) {
+            Region west = rectangle(minLat, maxLat, minLng, GeoHash.MAX_LNG);
+            Region east = rectangle(minLat, maxLat, GeoHash.MIN_LNG, maxLng);
+            return new Region() {
+                @Override
+                public boolean contains(double[] box) {
+                    return west.contains(box) || east.contains(box);
+                }
+
+                @Override
+                public boolean intersects(double[] box) {
+                    return west.intersects(box) || east.intersects(box);
+                }
+            };
+        }
+        if (minLat <= maxLat && minLng <= maxLng) {
+            return new BoundingBox(minLat, maxLat, minLng, maxLng);
+        }
+        // minLat大于maxLat或有NaN时不包含也不相交任何块
+        return new Region() {
+            @Override
+            public boolean contains(double[] box) {
+                return false;
+            }
+
+            @Override
+            public boolean intersects(double[] box) {
+                return false;
+            }
+        };
+    }
+}
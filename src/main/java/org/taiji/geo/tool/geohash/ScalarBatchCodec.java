@@ -0,0 +1,34 @@
+package org.taiji.geo.tool.geohash;
+
+/**
+ * 标量的{@link BatchCodec}实现
+ *
+ * @author tim
+ */
+class ScalarBatchCodec implements BatchCodec {
+    private final GeoHash geoHash;
+
+    ScalarBatchCodec(GeoHash geoHash) {
+        this.geoHash = geoHash;
+    }
+
+    @Override
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    @Override
+    public void toBits(double[] lats, double[] lngs, long[] out) {
+        geoHash.toBits(lats, lngs, out);
+    }
+
+    @Override
+    public void encode(double[] lats, double[] lngs, char[] out) {
+        geoHash.encode(lats, lngs, out);
+    }
+
+    @Override
+    public void decode(long[] bits, double[] latsOut, double[] lngsOut) {
+        geoHash.decode(bits, latsOut, lngsOut);
+    }
+}
@@ -0,0 +1,369 @@
+package org.taiji.geo.tool.geohash;
+
+import java.io.ByteArrayOutputStream;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * 轨迹编码
+ * 把按时间排列的定位点映射为轨迹依次经过的块, 相邻的相同块合并为一段并记录其中的定位点数(游程);
+ * 相邻两个定位点之间跨过的块按经纬度平面上的直线补齐, 补出的块定位点数为0
+ * <p>
+ * 补齐后相邻的块共边, 压缩格式只记录3位的方向码, 一般每块一个字节, 见{@link Trajectory#toBytes()}
+ * <p>
+ * 超出范围的有限坐标与{@link GeoHash#toBits(double, double)}一样归入边缘的块; NaN和无穷大会抛出异常, 不参与补齐
+ * <p>
+ * 连续落在同一块内的定位点只做一次边界比较, 不重新编码
+ * 不可变, 线程安全
+ *
+ * @author tim
+ */
+public class TrajectoryEncoder {
+    /**
+     * 默认的单次补齐块数上限
+     */
+    public static final int DEFAULT_MAX_FILL = 4096;
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int SOUTH = 2;
+    private static final int WEST = 3;
+    private static final int JUMP = 4;
+
+    private final GeoHash geoHash;
+    private final int maxFill;
+
+    /**
+     * @param geoHash 编码精度, 如{@link Base32#getBase32(int) Base32.getBase32(7)}
+     */
+    public TrajectoryEncoder(GeoHash geoHash) {
+        this(geoHash, DEFAULT_MAX_FILL);
+    }
+
+    /**
+     * @param geoHash 编码精度, 比特数必须小于64
+     * @param maxFill 相邻两个定位点之间最多补齐的块数, 超过时不补齐, 两块之间记为跳跃; 为0时不补齐
+     */
+    public TrajectoryEncoder(GeoHash geoHash, int maxFill) {
+        if (geoHash.getBitsLength() >= 64) {
+            throw new InvalidParameterException("bits length expected to be less than 64, " + geoHash.getBitsLength() + " found.");
+        }
+        if (maxFill < 0) {
+            throw new InvalidParameterException("maxFill expected to be non-negative, " + maxFill + " found.");
+        }
+        this.geoHash = geoHash;
+        this.maxFill = maxFill;
+    }
+
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    /**
+     * 编码一条轨迹
+     *
+     * @param lats 定位点纬度, 按时间排列
+     * @param lngs 定位点经度
+     * @return {@link Trajectory}
+     * @throws InvalidParameterException 坐标为NaN或无穷大
+     */
+    public Trajectory encode(double[] lats, double[] lngs) {
+        GeoCalculator.checkBatch(lats.length, lngs.length, lats.length);
+        int latTimes = geoHash.getLatBitsLength();
+        int lngTimes = geoHash.getLngBitsLength();
+        double latCell = (GeoHash.MAX_LAT - GeoHash.MIN_LAT) / (double) (1L << latTimes);
+        double lngCell = (GeoHash.MAX_LNG - GeoHash.MIN_LNG) / (double) (1L << lngTimes);
+        Runs runs = new Runs(geoHash, lats.length);
+        int lat = 0;
+        int lng = 0;
+        // 当前块的边界, 与GeoHash.quantize的判定一致
+        double south = Double.NaN, north = Double.NaN, west = Double.NaN, east = Double.NaN;
+        for (int i = 0; i < lats.length; i++) {
+            if (lats[i] >= south && lats[i] < north && lngs[i] >= west && lngs[i] < east) {
+                runs.hit();
+                continue;
+            }
+            if (!Double.isFinite(lats[i]) || !Double.isFinite(lngs[i])) {
+                throw new InvalidParameterException("fix expected to be finite, ("
+                    + lats[i] + ", " + lngs[i] + ") found at index " + i + ".");
+            }
+            int nextLat = GeoHash.quantize(GeoHash.MIN_LAT, GeoHash.MAX_LAT, lats[i], latTimes);
+            int nextLng = GeoHash.quantize(GeoHash.MIN_LNG, GeoHash.MAX_LNG, lngs[i], lngTimes);
+            if (i > 0) {
+                if (nextLat == lat && nextLng == lng) {
+                    // 超出范围的坐标归入边缘的块, 不在边界内但仍是同一块
+                    runs.hit();
+                    continue;
+                }
+                fill(runs, lat, lng, nextLat, nextLng, lats[i - 1], lngs[i - 1], lats[i], lngs[i], latCell, lngCell);
+            }
+            lat = nextLat;
+            lng = nextLng;
+            runs.visit(lat, lng);
+            runs.hit();
+            south = GeoHash.MIN_LAT + (lat & 0xFFFFFFFFL) * latCell;
+            north = GeoHash.MIN_LAT + ((lat & 0xFFFFFFFFL) + 1) * latCell;
+            west = GeoHash.MIN_LNG + (lng & 0xFFFFFFFFL) * lngCell;
+            east = GeoHash.MIN_LNG + ((lng & 0xFFFFFFFFL) + 1) * lngCell;
+        }
+        return runs.toTrajectory();
+    }
+
+    /**
+     * 补齐两个定位点之间直线经过的块, 不含两端的块
+     * 沿直线依次比较到达下一条纬线和下一条经线的参数t, 先到的方向走一格(2D DDA);
+     * 两个方向的总步数固定为两端块号之差, 浮点误差不会使补齐的路径错过终点块
+     */
+    private void fill(Runs runs, int fromLat, int fromLng, int toLat, int toLng,
+                      double lat0, double lng0, double lat1, double lng1, double latCell, double lngCell) {
+        long lngCount = 1L << geoHash.getLngBitsLength();
+        long latSteps = (toLat & 0xFFFFFFFFL) - (fromLat & 0xFFFFFFFFL);
+        // 经度方向走较近的一侧, 跨越±180°经线时块号回绕
+        long lngSteps = Math.floorMod((toLng & 0xFFFFFFFFL) - (fromLng & 0xFFFFFFFFL), lngCount);
+        if (lngSteps > lngCount / 2) {
+            lngSteps -= lngCount;
+        }
+        if (Math.abs(latSteps) + Math.abs(lngSteps) - 1 > maxFill) {
+            return;
+        }
+        double dy = (lat1 - lat0) / latCell;
+        double dx = GeoCalculator.wrapLng(lng1 - lng0) / lngCell;
+        // 起点在块内的相对位置
+        double fy = fraction((lat0 - GeoHash.MIN_LAT) / latCell - (fromLat & 0xFFFFFFFFL));
+        double fx = fraction((lng0 - GeoHash.MIN_LNG) / lngCell - (fromLng & 0xFFFFFFFFL));
+        double tDeltaY = 1 / Math.abs(dy);
+        double tDeltaX = 1 / Math.abs(dx);
+        double tMaxY = (latSteps > 0 ? 1 - fy : fy) * tDeltaY;
+        double tMaxX = (lngSteps > 0 ? 1 - fx : fx) * tDeltaX;
+        long remainingY = Math.abs(latSteps);
+        long remainingX = Math.abs(lngSteps);
+        long lat = fromLat & 0xFFFFFFFFL;
+        long lng = fromLng & 0xFFFFFFFFL;
+        while (remainingX + remainingY > 1) {
+            if (remainingY == 0 || (remainingX > 0 && !(tMaxY < tMaxX))) {
+                lng = (lng + Long.signum(lngSteps)) & (lngCount - 1);
+                tMaxX += tDeltaX;
+                remainingX--;
+            } else {
+                lat += Long.signum(latSteps);
+                tMaxY += tDeltaY;
+                remainingY--;
+            }
+            runs.visit((int) lat, (int) lng);
+        }
+    }
+
+    private static double fraction(double offset) {
+        return Math.max(0, Math.min(1, offset));
+    }
+
+    /**
+     * 构造中的游程
+     */
+    private static final class Runs {
+        private final GeoHash geoHash;
+        private final LongList cells;
+        private int[] counts;
+
+        Runs(GeoHash geoHash, int capacity) {
+            this.geoHash = geoHash;
+            this.cells = new LongList(capacity);
+            this.counts = new int[Math.max(capacity, 1)];
+        }
+
+        void visit(int lat, int lng) {
+            if (cells.size() == counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            cells.add(geoHash.compact(lng, lat));
+        }
+
+        void hit() {
+            counts[cells.size() - 1]++;
+        }
+
+        Trajectory toTrajectory() {
+            return new Trajectory(geoHash, cells.toArray(), Arrays.copyOf(counts, cells.size()));
+        }
+    }
+
+    /**
+     * 编码后的轨迹: 依次经过的块及每块内的定位点数
+     * 不可变, 线程安全
+     */
+    public static final class Trajectory {
+        private final GeoHash geoHash;
+        private final long[] cells;
+        private final int[] counts;
+
+        private Trajectory(GeoHash geoHash, long[] cells, int[] counts) {
+            this.geoHash = geoHash;
+            this.cells = cells;
+            this.counts = counts;
+        }
+
+        public GeoHash getGeoHash() {
+            return geoHash;
+        }
+
+        /**
+         * 块的数量, 相邻的块不同, 但轨迹折返时同一块可以多次出现
+         */
+        public int size() {
+            return cells.length;
+        }
+
+        public long getBits(int index) {
+            return cells[index];
+        }
+
+        public String getHash(int index) {
+            return geoHash.toHash(cells[index]);
+        }
+
+        /**
+         * 块内连续的定位点数, 补齐的块为0
+         */
+        public int getCount(int index) {
+            return counts[index];
+        }
+
+        /**
+         * @return 依次经过的块的比特串
+         */
+        public long[] toBits() {
+            return cells.clone();
+        }
+
+        /**
+         * 压缩格式:
+         * <ul>
+         * <li>单字符比特数和编码长度各一个字节</li>
+         * <li>块数, 第一块的纬度块号, 经度块号和定位点数, 均为varint</li>
+         * <li>之后每块一个varint: 定位点数左移3位, 低3位为方向码: 0到3依次为相对上一块向北, 东, 南, 西走一格,
+         * 4为跳跃, 其后是zigzag编码的纬度块号差和经度块号差</li>
+         * </ul>
+         *
+         * @return 压缩后的字节
+         */
+        public byte[] toBytes() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(cells.length + 16);
+            out.write(geoHash.getCharBitsLength());
+            out.write(geoHash.getLength());
+            writeVarint(out, cells.length);
+            if (cells.length == 0) {
+                return out.toByteArray();
+            }
+            long lngCount = 1L << geoHash.getLngBitsLength();
+            long lat = geoHash.latBits(cells[0]) & 0xFFFFFFFFL;
+            long lng = geoHash.lngBits(cells[0]) & 0xFFFFFFFFL;
+            writeVarint(out, lat);
+            writeVarint(out, lng);
+            writeVarint(out, counts[0]);
+            for (int i = 1; i < cells.length; i++) {
+                long nextLat = geoHash.latBits(cells[i]) & 0xFFFFFFFFL;
+                long nextLng = geoHash.lngBits(cells[i]) & 0xFFFFFFFFL;
+                long dLat = nextLat - lat;
+                long dLng = Math.floorMod(nextLng - lng, lngCount);
+                if (dLng > lngCount / 2) {
+                    dLng -= lngCount;
+                }
+                long header = (long) counts[i] << 3;
+                if (dLat == 1 && dLng == 0) {
+                    writeVarint(out, header | NORTH);
+                } else if (dLat == 0 && dLng == 1) {
+                    writeVarint(out, header | EAST);
+                } else if (dLat == -1 && dLng == 0) {
+                    writeVarint(out, header | SOUTH);
+                } else if (dLat == 0 && dLng == -1) {
+                    writeVarint(out, header | WEST);
+                } else {
+                    writeVarint(out, header | JUMP);
+                    writeVarint(out, (dLat << 1) ^ (dLat >> 63));
+                    writeVarint(out, (dLng << 1) ^ (dLng >> 63));
+                }
+                lat = nextLat;
+                lng = nextLng;
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * 解析{@link #toBytes()}的结果
+         *
+         * @param bytes 压缩后的字节
+         * @return {@link Trajectory}
+         */
+        public static Trajectory fromBytes(byte[] bytes) {
+            if (bytes.length < 3) {
+                throw new InvalidParameterException("trajectory bytes too short: " + bytes.length);
+            }
+            GeoHash geoHash = GeoHash.valueOf(bytes[0], bytes[1]);
+            long lngMask = (1L << geoHash.getLngBitsLength()) - 1;
+            int[] cursor = new int[]{2};
+            int size = (int) readVarint(bytes, cursor);
+            long[] cells = new long[size];
+            int[] counts = new int[size];
+            long lat = 0;
+            long lng = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0) {
+                    lat = readVarint(bytes, cursor);
+                    lng = readVarint(bytes, cursor);
+                    counts[i] = (int) readVarint(bytes, cursor);
+                } else {
+                    long header = readVarint(bytes, cursor);
+                    counts[i] = (int) (header >>> 3);
+                    switch ((int) (header & 7)) {
+                        case NORTH:
+                            lat++;
+                            break;
+                        case EAST:
+                            lng++;
+                            break;
+                        case SOUTH:
+                            lat--;
+                            break;
+                        case WEST:
+                            lng--;
+                            break;
+                        case JUMP:
+                            long dLat = readVarint(bytes, cursor);
+                            long dLng = readVarint(bytes, cursor);
+                            lat += (dLat >>> 1) ^ -(dLat & 1);
+                            lng += (dLng >>> 1) ^ -(dLng & 1);
+                            break;
+                        default:
+                            throw new InvalidParameterException("invalid trajectory direction at byte " + cursor[0]);
+                    }
+                }
+                lng &= lngMask;
+                cells[i] = geoHash.compact((int) lng, (int) lat);
+            }
+            return new Trajectory(geoHash, cells, counts);
+        }
+
+        private static void writeVarint(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private static long readVarint(byte[] bytes, int[] cursor) {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (cursor[0] >= bytes.length) {
+                    throw new InvalidParameterException("truncated trajectory bytes");
+                }
+                byte b = bytes[cursor[0]++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new InvalidParameterException("malformed varint at byte " + cursor[0]);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package org.taiji.geo.tool.geohash;
+
+import static java.lang.Math.*;
+
+/**
+ * 预处理起点的Vincenty椭球体(WGS84)反算和正算
+ * 起点的归化纬度只计算一次, 距离, 方位角和终点坐标写入基本类型数组, 循环内不产生临时对象
+ * <p>
+ * 近对映点处Vincenty在经度差上的迭代可能不收敛, 此时改为在起点方位角上求解(思路同Karney 2013):
+ * 把问题化为起点在南半球, 终点纬度绝对值不大于起点, 经度差在[0, π]的标准形式,
+ * 经度差随起点方位角单调, 用二分法总能收敛, 不再抛出异常
+ * <p>
+ * 不可变, 线程安全
+ *
+ * @author tim
+ */
+public final class VincentySolver {
+    /**
+     * WGS84长半轴, 单位: 米
+     */
+    static final double SEMI_MAJOR = 6_378_137;
+
+    /**
+     * WGS84短半轴, 单位: 米
+     */
+    static final double SEMI_MINOR = 6_356_752.314245;
+
+    /**
+     * WGS84扁率
+     */
+    static final double FLATTENING = 1 / 298.257223563;
+
+    private static final int ITERATION_LIMIT = 100;
+    private static final double EPSILON = 1e-12;
+
+    private final double lat;
+    private final double lng;
+    private final double sinU1;
+    private final double cosU1;
+
+    public VincentySolver(double lat, double lng) {
+        this.lat = lat;
+        this.lng = lng;
+        double tanU1 = (1 - FLATTENING) * tan(toRadians(lat));
+        this.cosU1 = 1 / sqrt((1 + tanU1 * tanU1));
+        this.sinU1 = tanU1 * cosU1;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    /**
+     * 起点到终点的椭球体距离
+     *
+     * @param foreLat 终点纬度
+     * @param foreLng 终点经度
+     * @return 距离, 单位: 米
+     */
+    public double distance(double foreLat, double foreLng) {
+        return inverse(foreLat, foreLng, null);
+    }
+
+    /**
+     * 起点到终点的椭球体距离和方位角
+     *
+     * @param foreLat  终点纬度
+     * @param foreLng  终点经度
+     * @param bearings 输出的方位角, [0]为起点处的方位角, [1]为终点处沿前进方向的方位角, 单位: 度, 正北为0, 顺时针;
+     *                 为null时不计算方位角
+     * @return 距离, 单位: 米
+     */
+    public double inverse(double foreLat, double foreLng, double[] bearings) {
+        double tanU2 = (1 - FLATTENING) * tan(toRadians(foreLat));
+        double cosU2 = 1 / sqrt((1 + tanU2 * tanU2));
+        double sinU2 = tanU2 * cosU2;
+        double L = toRadians(GeoCalculator.wrapLng(foreLng - lng));
+        return vincenty(sinU1, cosU1, sinU2, cosU2, L, bearings);
+    }
+
+    /**
+     * 批量计算起点到各点的椭球体距离
+     *
+     * @param lats 纬度数组
+     * @param lngs 经度数组
+     * @param out  输出的距离, 单位: 米
+     */
+    public void distances(double[] lats, double[] lngs, double[] out) {
+        GeoCalculator.checkBatch(lats.length, lngs.length, out.length);
+        for (int i = 0; i < lats.length; i++) {
+            out[i] = inverse(lats[i], lngs[i], null);
+        }
+    }
+
+    /**
+     * 批量计算起点到各点的椭球体距离和方位角
+     *
+     * @param lats            纬度数组
+     * @param lngs            经度数组
+     * @param distances       输出的距离, 单位: 米
+     * @param initialBearings 输出的起点处方位角, 单位: 度
+     * @param finalBearings   输出的终点处方位角, 单位: 度
+     */
+    public void inverse(double[] lats, double[] lngs, double[] distances, double[] initialBearings, double[] finalBearings) {
+        GeoCalculator.checkBatch(lats.length, lngs.length, distances.length);
+        GeoCalculator.checkBatch(lats.length, lngs.length, min(initialBearings.length, finalBearings.length));
+        double[] bearings = new double[2];
+        for (int i = 0; i < lats.length; i++) {
+            distances[i] = inverse(lats[i], lngs[i], bearings);
+            initialBearings[i] = bearings[0];
+            finalBearings[i] = bearings[1];
+        }
+    }
+
+    /**
+     * 正算: 从起点沿方位角前进一段距离后的点
+     *
+     * @param bearing  方位角, 单位: 度, 正北为0, 顺时针
+     * @param distance 距离, 单位: 米
+     * @param out      输出, [0]为纬度, [1]为经度, 经度在[-180, 180)内
+     */
+    public void destination(double bearing, double distance, double[] out) {
+        ray(bearing).destination(distance, out);
+    }
+
+    /**
+     * 批量正算, 方位角和距离逐个对应
+     *
+     * @param bearings  方位角数组, 单位: 度
+     * @param distances 距离数组, 单位: 米
+     * @param outLats   输出的纬度
+     * @param outLngs   输出的经度
+     */
+    public void destinations(double[] bearings, double[] distances, double[] outLats, double[] outLngs) {
+        GeoCalculator.checkBatch(bearings.length, distances.length, min(outLats.length, outLngs.length));
+        double[] point = new double[2];
+        for (int i = 0; i < bearings.length; i++) {
+            ray(bearings[i]).destination(distances[i], point);
+            outLats[i] = point[0];
+            outLngs[i] = point[1];
+        }
+    }
+
+    /**
+     * 批量正算, 沿同一方位角前进不同的距离; 与方位角有关的量只计算一次
+     *
+     * @param bearing   方位角, 单位: 度
+     * @param distances 距离数组, 单位: 米
+     * @param outLats   输出的纬度
+     * @param outLngs   输出的经度
+     */
+    public void destinations(double bearing, double[] distances, double[] outLats, double[] outLngs) {
+        GeoCalculator.checkBatch(distances.length, distances.length, min(outLats.length, outLngs.length));
+        Ray ray = ray(bearing);
+        double[] point = new double[2];
+        for (int i = 0; i < distances.length; i++) {
+            ray.destination(distances[i], point);
+            outLats[i] = point[0];
+            outLngs[i] = point[1];
+        }
+    }
+
+    Ray ray(double bearing) {
+        return new Ray(bearing);
+    }
+
+    /**
+     * 从起点出发的一条测地线, 预先算好与方位角有关的量, 正算时只对距离迭代
+     */
+    final class Ray {
+        private final double sinα1;
+        private final double cosα1;
+        private final double σ1;
+        private final double sinα;
+        private final double cosSqα;
+        private final double A;
+        private final double B;
+        private final double C;
+
+        private Ray(double bearing) {
+            double α1 = toRadians(bearing);
+            this.sinα1 = sin(α1);
+            this.cosα1 = cos(α1);
+            this.σ1 = atan2(sinU1, cosU1 * cosα1);
+            this.sinα = cosU1 * sinα1;
+            this.cosSqα = 1 - sinα * sinα;
+            double uSq = cosSqα * (SEMI_MAJOR * SEMI_MAJOR - SEMI_MINOR * SEMI_MINOR) / (SEMI_MINOR * SEMI_MINOR);
+            this.A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+            this.B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+            this.C = FLATTENING / 16 * cosSqα * (4 + FLATTENING * (4 - 3 * cosSqα));
+        }
+
+        /**
+         * @param distance 距离, 单位: 米
+         * @param out      输出, [0]为纬度, [1]为经度
+         */
+        void destination(double distance, double[] out) {
+            double σ0 = distance / (SEMI_MINOR * A);
+            double σ = σ0, σʹ, sinσ, cosσ, cos2σM;
+            int iterationLimit = ITERATION_LIMIT;
+            do {
+                cos2σM = cos(2 * σ1 + σ);
+                sinσ = sin(σ);
+                cosσ = cos(σ);
+                double Δσ = B * sinσ * (cos2σM + B / 4 * (cosσ * (-1 + 2 * cos2σM * cos2σM) -
+                    B / 6 * cos2σM * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σM * cos2σM)));
+                σʹ = σ;
+                σ = σ0 + Δσ;
+            } while (abs(σ - σʹ) > EPSILON && --iterationLimit > 0);
+            // 迭代量是级数修正项, 总是收敛
+            cos2σM = cos(2 * σ1 + σ);
+            sinσ = sin(σ);
+            cosσ = cos(σ);
+
+            double x = sinU1 * sinσ - cosU1 * cosσ * cosα1;
+            double φ2 = atan2(sinU1 * cosσ + cosU1 * sinσ * cosα1, (1 - FLATTENING) * sqrt(sinα * sinα + x * x));
+            double λ = atan2(sinσ * sinα1, cosU1 * cosσ - sinU1 * sinσ * cosα1);
+            double L = λ - (1 - C) * FLATTENING * sinα * (σ + C * sinσ * (cos2σM + C * cosσ * (-1 + 2 * cos2σM * cos2σM)));
+            double λ2 = toRadians(lng) + L;
+            out[0] = toDegrees(φ2);
+            out[1] = toDegrees((λ2 + 3 * PI) % (2 * PI) - PI);
+        }
+    }
+
+    /**
+     * Vincenty迭代, 不收敛时转到{@link #fallback(double, double, double, double, double, double[])}
+     *
+     * @param L 经度差, 单位: 弧度, 在[-π, π]内
+     */
+    static double vincenty(double sinU1, double cosU1, double sinU2, double cosU2, double L, double[] bearings) {
+        double λ = L, λʹ, cosSqα, σ, cos2σM, cosσ, sinσ, sinλ, cosλ;
+        int iterationLimit = ITERATION_LIMIT;
+        do {
+            sinλ = sin(λ);
+            cosλ = cos(λ);
+            double sinSqσ = (cosU2 * sinλ) * (cosU2 * sinλ) + (cosU1 * sinU2 - sinU1 * cosU2 * cosλ) * (cosU1 * sinU2 - sinU1 * cosU2 * cosλ);
+            sinσ = sqrt(sinSqσ);
+            if (sinσ == 0) {
+                if (bearings != null) {
+                    bearings[0] = 0;
+                    bearings[1] = 0;
+                }
+                return 0;  // co-incident points
+            }
+            cosσ = sinU1 * sinU2 + cosU1 * cosU2 * cosλ;
+            σ = atan2(sinσ, cosσ);
+            double sinα = cosU1 * cosU2 * sinλ / sinσ;
+            cosSqα = 1 - sinα * sinα;
+            cos2σM = cosσ - 2 * sinU1 * sinU2 / cosSqα;
+
+            if (Double.isNaN(cos2σM)) {
+                cos2σM = 0;  // equatorial line: cosSqα=0 (§6)
+            }
+            double C = FLATTENING / 16 * cosSqα * (4 + FLATTENING * (4 - 3 * cosSqα));
+            λʹ = λ;
+            λ = L + (1 - C) * FLATTENING * sinα * (σ + C * sinσ * (cos2σM + C * cosσ * (-1 + 2 * cos2σM * cos2σM)));
+            if (abs(λ) > PI) {
+                // 近对映点, 辅助球面上的经度差越过了π
+                return fallback(sinU1, cosU1, sinU2, cosU2, L, bearings);
+            }
+        } while (abs(λ - λʹ) > EPSILON && --iterationLimit > 0);
+
+        if (iterationLimit == 0) {
+            return fallback(sinU1, cosU1, sinU2, cosU2, L, bearings);
+        }
+
+        double distance = distance(cosSqα, sinσ, cosσ, σ, cos2σM);
+        if (bearings != null) {
+            bearings[0] = azimuth(atan2(cosU2 * sinλ, cosU1 * sinU2 - sinU1 * cosU2 * cosλ));
+            bearings[1] = azimuth(atan2(cosU1 * sinλ, -sinU1 * cosU2 + cosU1 * sinU2 * cosλ));
+        }
+        return distance;
+    }
+
+    /**
+     * 在起点方位角上二分求解, 适用于任意两点, 只在Vincenty迭代失败时使用
+     * 标准形式下起点方位角α1从0增加到π时, 终点取测地线向北经过其纬度的第一个交点, 经度差从0单调增加到π
+     *
+     * @param L 经度差, 单位: 弧度, 在[-π, π]内
+     */
+    static double fallback(double sinU1, double cosU1, double sinU2, double cosU2, double L, double[] bearings) {
+        // 化为标准形式: 交换两点使|U1| >= |U2|, 翻转经度使L >= 0, 翻转纬度使U1 <= 0
+        boolean swap = abs(sinU2) > abs(sinU1);
+        if (swap) {
+            double t = sinU1;
+            sinU1 = sinU2;
+            sinU2 = t;
+            t = cosU1;
+            cosU1 = cosU2;
+            cosU2 = t;
+            L = -L;
+        }
+        boolean lngFlip = L < 0;
+        if (lngFlip) {
+            L = -L;
+        }
+        boolean latFlip = sinU1 > 0;
+        if (latFlip) {
+            sinU1 = -sinU1;
+            sinU2 = -sinU2;
+        }
+
+        double lo = 0, hi = PI, α1 = PI / 2;
+        double sinα0 = 0, cosSqα = 0, σ = 0, cos2σM = 0, cosα2CosU2 = 0;
+        for (int i = 0; i < ITERATION_LIMIT; i++) {
+            α1 = (lo + hi) / 2;
+            double sinα1 = sin(α1), cosα1 = cos(α1);
+            sinα0 = sinα1 * cosU1;
+            cosSqα = 1 - sinα0 * sinα0;
+            // 终点处cosα2 * cosU2, 取非负的根即向北经过终点纬度
+            cosα2CosU2 = sqrt(max(0, cosα1 * cosU1 * (cosα1 * cosU1) + (cosU2 - cosU1) * (cosU2 + cosU1)));
+            // 辅助球面上从升交点起算的弧长和经度
+            double σ1 = atan2(sinU1, cosα1 * cosU1);
+            double σ2 = atan2(sinU2, cosα2CosU2);
+            double ω1 = atan2(sinα0 * sinU1, cosα1 * cosU1);
+            double ω2 = atan2(sinα0 * sinU2, cosα2CosU2);
+            σ = σ2 - σ1;
+            if (σ < 0) {
+                σ += 2 * PI;
+            }
+            double ω = ω2 - ω1;
+            if (ω < 0) {
+                ω += 2 * PI;
+            }
+            cos2σM = cos(σ1 + σ2);
+            double C = FLATTENING / 16 * cosSqα * (4 + FLATTENING * (4 - 3 * cosSqα));
+            double λ = ω - (1 - C) * FLATTENING * sinα0 * (σ + C * sin(σ) * (cos2σM + C * cos(σ) * (-1 + 2 * cos2σM * cos2σM)));
+            if (abs(λ - L) <= EPSILON || hi - lo <= EPSILON * EPSILON) {
+                break;
+            }
+            if (λ < L) {
+                lo = α1;
+            } else {
+                hi = α1;
+            }
+        }
+
+        double distance = distance(cosSqα, sin(σ), cos(σ), σ, cos2σM);
+        if (bearings != null) {
+            double α2 = atan2(sinα0, cosα2CosU2);
+            // 按相反的顺序还原标准形式
+            if (latFlip) {
+                α1 = PI - α1;
+                α2 = PI - α2;
+            }
+            if (lngFlip) {
+                α1 = -α1;
+                α2 = -α2;
+            }
+            if (swap) {
+                double t = α1;
+                α1 = α2 + PI;
+                α2 = t + PI;
+            }
+            bearings[0] = azimuth(α1);
+            bearings[1] = azimuth(α2);
+        }
+        return distance;
+    }
+
+    private static double distance(double cosSqα, double sinσ, double cosσ, double σ, double cos2σM) {
+        double uSq = cosSqα * (SEMI_MAJOR * SEMI_MAJOR - SEMI_MINOR * SEMI_MINOR) / (SEMI_MINOR * SEMI_MINOR);
+        double A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double Δσ = B * sinσ * (cos2σM + B / 4 * (cosσ * (-1 + 2 * cos2σM * cos2σM) -
+            B / 6 * cos2σM * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σM * cos2σM)));
+        return SEMI_MINOR * A * (σ - Δσ);
+    }
+
+    /**
+     * 弧度转为[0, 360)的方位角
+     */
+    private static double azimuth(double radians) {
+        double normalized = (radians + 2 * PI) % (2 * PI);
+        return toDegrees(normalized < 0 ? normalized + 2 * PI : normalized);
+    }
+}
@@ -0,0 +1,75 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BoundingBoxTest {
+    @Test
+    public void testDecodeBounds() {
+        Random random = new Random(20);
+        GeoHash[] geoHashes = new GeoHash[]{Base4.getBase4(15), Base16.getBase16(7), Base32.getBase32(1), Base32.getBase32(12)};
+        double[] box = new double[4];
+        for (GeoHash geoHash : geoHashes) {
+            for (int i = 0; i < 1000; i++) {
+                double lat = random.nextDouble() * 180 - 90;
+                double lng = random.nextDouble() * 360 - 180;
+                String hash = geoHash.encode(lat, lng);
+                BoundingBox bounds = geoHash.decodeBounds(hash);
+                assertEquals(bounds, geoHash.decodeBounds(geoHash.toBits(hash)));
+                assertTrue(bounds.contains(lat, lng));
+                Position center = geoHash.decode(hash);
+                assertEquals(center.getLat(), bounds.getCenterLat(), 1e-12);
+                assertEquals(center.getLng(), bounds.getCenterLng(), 1e-12);
+                geoHash.decodeBox(geoHash.toBits(hash), box);
+                assertArrayEquals(box, bounds.toArray(), 0);
+                assertTrue(bounds.contains(box));
+                // 父块包含子块
+                if (geoHash.getLength() > 1) {
+                    BoundingBox parent = geoHash.withLength(geoHash.getLength() - 1).decodeBounds(hash.substring(0, hash.length() - 1));
+                    assertTrue(parent.contains(bounds));
+                    assertTrue(parent.intersects(bounds));
+                    assertFalse(bounds.contains(parent));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRelations() {
+        BoundingBox box = new BoundingBox(30, 32, 120, 122);
+        assertTrue(box.contains(31, 121));
+        assertTrue(box.contains(30, 122));
+        assertFalse(box.contains(29.9, 121));
+        assertTrue(box.intersects(new BoundingBox(32, 33, 122, 123)));
+        assertFalse(box.intersects(new BoundingBox(32.1, 33, 120, 122)));
+        assertFalse(box.intersects(new BoundingBox(30, 32, 122.1, 123)));
+        assertTrue(box.contains(new BoundingBox(30.5, 31.5, 120.5, 121.5)));
+        assertFalse(box.contains(new BoundingBox(30.5, 32.5, 120.5, 121.5)));
+        assertEquals(2, box.getLatSpan(), 0);
+        assertEquals(box, Region.rectangle(30, 32, 120, 122));
+        // 纬度颠倒或NaN的矩形是空区域
+        double[] world = new double[]{GeoHash.MIN_LAT, GeoHash.MAX_LAT, GeoHash.MIN_LNG, GeoHash.MAX_LNG};
+        for (Region empty : new Region[]{Region.rectangle(32, 30, 120, 122), Region.rectangle(Double.NaN, 32, 120, 122),
+            Region.rectangle(30, 32, Double.NaN, 122), Region.rectangle(32, 30, 179, -179)}) {
+            assertFalse(empty.intersects(world));
+            assertFalse(empty.contains(new double[]{31, 31, 121, 121}));
+        }
+        assertEquals(box.hashCode(), new BoundingBox(30, 32, 120, 122).hashCode());
+        try {
+            new BoundingBox(32, 30, 120, 122);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+        try {
+            new BoundingBox(30, 32, Double.NaN, 122);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+}
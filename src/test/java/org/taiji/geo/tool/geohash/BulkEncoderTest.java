@@ -0,0 +1,94 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.security.InvalidParameterException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BulkEncoderTest {
+    private static final int SIZE = 100000;
+    private double[] lats;
+    private double[] lngs;
+    private long[] expected;
+    private final Base32 base32 = Base32.getBase32(12);
+
+    @Before
+    public void before() {
+        Random random = new Random(SIZE);
+        lats = new double[SIZE];
+        lngs = new double[SIZE];
+        expected = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+            lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+            expected[i] = base32.toBits(lats[i], lngs[i]);
+        }
+    }
+
+    @Test
+    public void testArray() {
+        long[] out = new long[SIZE];
+        try (BulkEncoder encoder = new BulkEncoder(base32, 4, 1000)) {
+            encoder.toBits(lats, lngs, out);
+        }
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void testClose() {
+        // 传入的线程池由调用方管理, 关闭编码器后仍可使用
+        ForkJoinPool pool = new ForkJoinPool(2);
+        long[] out = new long[SIZE];
+        new BulkEncoder(base32, pool, 1000).close();
+        assertFalse(pool.isShutdown());
+        try (BulkEncoder encoder = new BulkEncoder(base32, pool, 1000)) {
+            encoder.toBits(lats, lngs, out);
+        }
+        assertArrayEquals(expected, out);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testInvalidGrain() {
+        for (int grain : new int[]{0, -1}) {
+            try {
+                new BulkEncoder(base32, 2, grain).close();
+                fail();
+            } catch (InvalidParameterException e) {
+                assertNotNull(e.getMessage());
+            }
+            try {
+                new BulkEncoder(base32, ForkJoinPool.commonPool(), grain);
+                fail();
+            } catch (InvalidParameterException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testBuffer() {
+        BulkEncoder encoder = new BulkEncoder(base32);
+        DoubleBuffer latBuffer = ByteBuffer.allocateDirect(SIZE * 8).asDoubleBuffer().put(lats);
+        DoubleBuffer lngBuffer = ByteBuffer.allocateDirect(SIZE * 8).asDoubleBuffer().put(lngs);
+        latBuffer.flip();
+        lngBuffer.flip();
+        LongBuffer out = LongBuffer.allocate(SIZE);
+        encoder.toBits(latBuffer, lngBuffer, out);
+        assertArrayEquals(expected, out.array());
+    }
+
+    @Test
+    public void testStream() {
+        BulkEncoder encoder = new BulkEncoder(base32);
+        assertArrayEquals(expected, encoder.stream(lats, lngs, true).toArray());
+        assertArrayEquals(expected, encoder.stream(lats, lngs, false).toArray());
+    }
+}
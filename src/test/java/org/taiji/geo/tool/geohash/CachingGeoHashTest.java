@@ -0,0 +1,119 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CachingGeoHashTest {
+    private final GeoHash geoHash = Base32.getBase32(7);
+
+    @Test
+    public void testDecode() {
+        for (CachingGeoHash.Policy policy : CachingGeoHash.Policy.values()) {
+            CachingGeoHash cache = new CachingGeoHash(geoHash, 64, policy);
+            Random random = new Random(7);
+            double[] box = new double[4];
+            double[] expectedBox = new double[4];
+            for (int i = 0; i < 1000; i++) {
+                String hash = geoHash.encode(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+                Position position = cache.decode(hash);
+                assertEquals(geoHash.decode(hash).getLat(), position.getLat(), 0);
+                assertEquals(geoHash.decode(hash).getLng(), position.getLng(), 0);
+                cache.decodeBox(hash, box);
+                geoHash.decodeBox(geoHash.toBits(hash), expectedBox);
+                assertArrayEquals(expectedBox, box, 0);
+                assertEquals(geoHash.decodeBounds(hash), cache.decodeBounds(hash));
+                assertArrayEquals(geoHash.getNeibor(hash).toArray(), cache.getNeibor(hash).toArray());
+                assertTrue(cache.size() <= 64);
+            }
+            assertEquals(4000, cache.getHits() + cache.getMisses());
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        CachingGeoHash cache = new CachingGeoHash(geoHash, 16, CachingGeoHash.Policy.LRU);
+        String hash = geoHash.encode(31.2, 121.4);
+        cache.getNeibor(hash).setNorth("modified");
+        assertEquals(geoHash.getNeibor(hash).getNorth(), cache.getNeibor(hash).getNorth());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLru() {
+        CachingGeoHash cache = new CachingGeoHash(geoHash, 1, CachingGeoHash.Policy.LRU);
+        cache.decode("wtw3sjq");
+        cache.decode("wtw3sjq");
+        cache.decode("wx4g0bm");
+        cache.decode("wtw3sjq");
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testLfu() {
+        CachingGeoHash cache = new CachingGeoHash(geoHash, 2, CachingGeoHash.Policy.LFU);
+        // 热点串访问多次后不会被新串挤出
+        for (int i = 0; i < 5; i++) {
+            cache.decode("wtw3sjq");
+        }
+        cache.decode("wx4g0bm");
+        cache.decode("ws10k0h");
+        cache.decode("wtw3sjq");
+        cache.decode("ws10k0h");
+        assertEquals(6, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(2, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testCapacity() {
+        for (CachingGeoHash.Policy policy : CachingGeoHash.Policy.values()) {
+            // 1030不能被段数整除
+            CachingGeoHash cache = new CachingGeoHash(geoHash, 1030, policy);
+            Random random = new Random(1030);
+            for (int i = 0; i < 100000; i++) {
+                cache.decode(geoHash.encode(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+            }
+            assertEquals(1030, cache.size());
+        }
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        CachingGeoHash cache = new CachingGeoHash(geoHash, 256, CachingGeoHash.Policy.LFU);
+        String[] hashes = new String[512];
+        Random random = new Random(512);
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = geoHash.encode(31 + random.nextDouble(), 121 + random.nextDouble());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<?>[] futures = new Future<?>[4];
+        for (int t = 0; t < futures.length; t++) {
+            futures[t] = executor.submit(() -> {
+                Random r = new Random();
+                for (int i = 0; i < 20000; i++) {
+                    // 偏斜分布, 前面的串访问更频繁
+                    String hash = hashes[(int) (Math.pow(r.nextDouble(), 3) * hashes.length)];
+                    assertEquals(geoHash.decode(hash).getLat(), cache.decode(hash).getLat(), 0);
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(80000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 256);
+        assertTrue(cache.getHits() > cache.getMisses());
+    }
+}
@@ -0,0 +1,111 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CircleCovererTest {
+    private static final Logger logger = LoggerFactory.getLogger(CircleCovererTest.class);
+    private static final double[][] CENTERS = new double[][]{
+        {31.192911, 121.437013},
+        {0.0001, 179.9999},   // 跨越180°经线
+        {89.9, 45},           // 靠近北极
+        {-33.8688, 151.2093},
+    };
+
+    @Test
+    public void testFixedPrecision() {
+        Base32 base32 = Base32.getBase32(6);
+        CircleCoverer coverer = new CircleCoverer(base32);
+        for (double[] center : CENTERS) {
+            for (double radius : new double[]{10, 500, 5000}) {
+                List<String> hashes = coverer.cover(new Position(center[0], center[1]), radius);
+                logger.info("{} {}m: {} cells", center, radius, hashes.size());
+                for (String hash : hashes) {
+                    assertEquals(6, hash.length());
+                }
+                assertCovered(base32, hashes, center, radius);
+            }
+        }
+    }
+
+    @Test
+    public void testMixedPrecision() {
+        Base32 base32 = Base32.getBase32(8);
+        int maxCells = 40;
+        CircleCoverer coverer = new CircleCoverer(base32, 4, maxCells);
+        CircleCoverer coarse = new CircleCoverer(base32.withLength(4));
+        for (double[] center : CENTERS) {
+            for (double radius : new double[]{100, 2000, 20000}) {
+                List<String> hashes = coverer.cover(new Position(center[0], center[1]), radius);
+                logger.info("{} {}m: {}", center, radius, hashes);
+                // 最小长度的块不受上限约束
+                assertTrue(hashes.size() <= Math.max(maxCells, coarse.cover(new Position(center[0], center[1]), radius).size()));
+                for (String hash : hashes) {
+                    assertTrue(hash.length() >= 4 && hash.length() <= 8);
+                }
+                assertCovered(base32, hashes, center, radius);
+            }
+        }
+    }
+
+    @Test
+    public void testMaxDistance() {
+        // 对映点的经线穿过矩形时, 最远点在边上而不是角点
+        double[] box = new double[]{-10, 10, 170, 179};
+        double farthest = GeoCalculator.harvesineDistance(0, 0, 0, 179);
+        assertTrue(farthest > GeoCalculator.harvesineDistance(0, 0, 10, 179));
+        assertEquals(farthest, CircleCoverer.maxDistance(0, 0, box), 1e-6);
+        // 随机的点和矩形: 不小于矩形内任一点的距离, 与采样到的最大值相差不超过网格间距
+        Random random = new Random(9);
+        for (int i = 0; i < 2000; i++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = random.nextDouble() * 360 - 180;
+            double minLat = random.nextDouble() * 170 - 85;
+            double minLng = random.nextDouble() * 350 - 180;
+            box = new double[]{minLat, minLat + random.nextDouble() * 5, minLng, minLng + random.nextDouble() * 10};
+            double max = CircleCoverer.maxDistance(lat, lng, box);
+            double sampled = 0;
+            for (int y = 0; y <= 20; y++) {
+                for (int x = 0; x <= 20; x++) {
+                    double distance = GeoCalculator.harvesineDistance(lat, lng,
+                        box[0] + (box[1] - box[0]) * y / 20, box[2] + (box[3] - box[2]) * x / 20);
+                    assertTrue(distance <= max + 1e-6);
+                    sampled = Math.max(sampled, distance);
+                }
+            }
+            assertTrue(max - sampled < 40000);
+        }
+    }
+
+    /**
+     * 圆内的随机点都落在某个覆盖块中, 且覆盖块都与圆相交
+     */
+    private static void assertCovered(GeoHash geoHash, List<String> hashes, double[] center, double radius) {
+        Random random = new Random(hashes.size());
+        Position position = new Position(center[0], center[1]);
+        for (int i = 0; i < 2000; i++) {
+            Position point = GeoCalculator.pointAt(position, random.nextDouble() * 360, random.nextDouble() * radius * 0.999);
+            String hash = geoHash.encode(point);
+            boolean covered = false;
+            for (String cell : hashes) {
+                if (hash.startsWith(cell)) {
+                    covered = true;
+                    break;
+                }
+            }
+            assertTrue(point + " is not covered", covered);
+        }
+        double[] box = new double[4];
+        for (String cell : hashes) {
+            GeoHash level = geoHash.withLength(cell.length());
+            level.decodeBox(level.toBits(cell), box);
+            assertTrue(cell + " is outside", CircleCoverer.minDistance(center[0], center[1], box) <= radius);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.Assert.*;
+
+public class DensifierTest {
+    // 上海 - 北京 - 重合的顶点 - 乌鲁木齐 - 跨越180°经线
+    private final double[] lats = new double[]{31.2304, 39.9042, 39.9042, 43.8256, 52.0, 51.5};
+    private final double[] lngs = new double[]{121.4737, 116.4074, 116.4074, 87.6168, 178.5, -178.0};
+
+    @Test
+    public void testSphere() {
+        double step = 10000;
+        double[] last = new double[]{Double.NaN, Double.NaN, -1};
+        int[] vertex = new int[1];
+        int count = Densifier.densify(lats, lngs, step, (index, lat, lng) -> {
+            assertTrue(index >= last[2]);
+            if (index > last[2]) {
+                // 每条线段从顶点开始
+                assertEquals(lats[index], lat, 0);
+                assertEquals(lngs[index], lng, 0);
+                vertex[0]++;
+            }
+            if (!Double.isNaN(last[0]) && index == last[2]) {
+                double gap = GeoCalculator.harvesineDistance(last[0], last[1], lat, lng);
+                assertTrue(gap <= step + 1e-6);
+                // 中间点与逐个正算一致
+                Position expected = GeoCalculator.pointAt(new Position(lats[index], lngs[index]),
+                    GeoCalculator.bearing(lats[index], lngs[index], lats[index + 1], lngs[index + 1]),
+                    GeoCalculator.harvesineDistance(lats[index], lngs[index], lat, lng));
+                assertEquals(expected.getLat(), lat, 1e-9);
+                assertEquals(expected.getLng(), lng, 1e-9);
+            }
+            last[0] = lat;
+            last[1] = lng;
+            last[2] = index;
+        });
+        assertEquals(lats.length, vertex[0]);
+        assertEquals(expected(step, false), count);
+        // 最后一个顶点
+        assertEquals(lats[lats.length - 1], last[0], 0);
+        assertEquals(lngs[lngs.length - 1], last[1], 0);
+    }
+
+    @Test
+    public void testEllipsoidal() {
+        double step = 10000;
+        double[] last = new double[]{Double.NaN, Double.NaN, -1};
+        int count = Densifier.densifyEllipsoidal(lats, lngs, step, (index, lat, lng) -> {
+            assertTrue(lng >= -180 && lng <= 180);
+            if (!Double.isNaN(last[0]) && index == last[2]) {
+                double gap = new VincentySolver(last[0], last[1]).distance(lat, lng);
+                assertTrue(gap <= step + 1e-6);
+                if (index + 1 < lats.length) {
+                    // 中间点在测地线上: 到两端的距离之和等于线段长度
+                    VincentySolver solver = new VincentySolver(lat, lng);
+                    double segment = new VincentySolver(lats[index], lngs[index]).distance(lats[index + 1], lngs[index + 1]);
+                    assertEquals(segment, solver.distance(lats[index], lngs[index]) + solver.distance(lats[index + 1], lngs[index + 1]), 1e-3);
+                }
+            }
+            last[0] = lat;
+            last[1] = lng;
+            last[2] = index;
+        });
+        assertEquals(expected(step, true), count);
+    }
+
+    @Test
+    public void testEdgeCases() {
+        assertEquals(0, Densifier.densify(new double[0], new double[0], 1, (index, lat, lng) -> fail()));
+        assertEquals(1, Densifier.densifyEllipsoidal(new double[]{1}, new double[]{2}, 1, (index, lat, lng) -> assertEquals(0, index)));
+        try {
+            Densifier.densify(lats, lngs, 0, (index, lat, lng) -> fail());
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+        try {
+            Densifier.densify(lats, new double[1], 1, (index, lat, lng) -> fail());
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    private int expected(double step, boolean ellipsoidal) {
+        int count = lats.length;
+        for (int i = 0; i < lats.length - 1; i++) {
+            double distance = ellipsoidal
+                ? new VincentySolver(lats[i], lngs[i]).distance(lats[i + 1], lngs[i + 1])
+                : GeoCalculator.harvesineDistance(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+            count += Math.max(0, (int) Math.ceil(distance / step) - 1);
+        }
+        return count;
+    }
+}
@@ -6,6 +6,12 @@ import org.junit.After;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.InvalidParameterException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
 /**
  * GeoCalculator Tester.
  *
@@ -15,6 +21,7 @@ import org.slf4j.LoggerFactory;
  */
 public class GeoCalculatorTest {
     private static final Logger logger = LoggerFactory.getLogger(GeoHashTest.class);
+    private static final int SIZE = 10000;
     Position p1;
     Position p2;
     Position p3;
@@ -80,4 +87,81 @@ public class GeoCalculatorTest {
         }
         logger.info(String.format("vincenty distance loop %d, spend %s ms", loop, System.currentTimeMillis() - start));
     }
+
+    @Test
+    public void testBatch() {
+        Random random = new Random(SIZE);
+        double[] lats = new double[SIZE];
+        double[] lngs = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            // 一半在原点附近, 一半全球分布
+            if (i % 2 == 0) {
+                lats[i] = 31.2 + random.nextGaussian() * 0.05;
+                lngs[i] = 121.4 + random.nextGaussian() * 0.05;
+            } else {
+                lats[i] = random.nextDouble() * 180 - 90;
+                lngs[i] = random.nextDouble() * 360 - 180;
+            }
+        }
+        Position origin = new Position(31.2, 121.4);
+        double[] harvesine = new double[SIZE];
+        double[] gcd = new double[SIZE];
+        double[] bearing = new double[SIZE];
+        GeoCalculator.harvesineDistances(origin.getLat(), origin.getLng(), lats, lngs, harvesine);
+        GeoCalculator.gcdDistances(origin.getLat(), origin.getLng(), lats, lngs, gcd);
+        GeoCalculator.bearings(origin.getLat(), origin.getLng(), lats, lngs, bearing);
+        for (int radius : new int[]{1000, 5000, 1000000}) {
+            BitSet bits = new BitSet();
+            int[] indexes = new int[SIZE];
+            int count = GeoCalculator.withinRadius(origin.getLat(), origin.getLng(), lats, lngs, radius, bits);
+            assertEquals(count, GeoCalculator.withinRadius(origin.getLat(), origin.getLng(), lats, lngs, radius, indexes));
+            assertEquals(count, bits.cardinality());
+            int expected = 0;
+            for (int i = 0; i < SIZE; i++) {
+                boolean within = harvesine[i] <= radius;
+                assertEquals(within, bits.get(i));
+                if (within) {
+                    assertEquals(i, indexes[expected++]);
+                }
+            }
+            assertEquals(expected, count);
+        }
+        for (int i = 0; i < SIZE; i++) {
+            Position fore = new Position(lats[i], lngs[i]);
+            assertEquals(GeoCalculator.harvesineDistance(origin, fore), harvesine[i], 0);
+            assertEquals(GeoCalculator.gcdDistance(origin, fore), gcd[i], 0);
+            assertEquals(GeoCalculator.bearing(origin, fore), bearing[i], 0);
+        }
+        try {
+            GeoCalculator.harvesineDistances(0, 0, lats, new double[SIZE - 1], harvesine);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPointsAt() {
+        Random random = new Random(SIZE);
+        double[] bearings = new double[SIZE];
+        double[] distances = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            bearings[i] = random.nextDouble() * 360;
+            distances[i] = random.nextDouble() * 2000000;
+        }
+        double[] lats = new double[SIZE];
+        double[] lngs = new double[SIZE];
+        GeoCalculator.pointsAt(p1.getLat(), p1.getLng(), bearings, distances, lats, lngs);
+        for (int i = 0; i < SIZE; i++) {
+            Position expected = GeoCalculator.pointAt(p1, bearings[i], distances[i]);
+            assertEquals(expected.getLat(), lats[i], 0);
+            assertEquals(expected.getLng(), lngs[i], 0);
+        }
+        try {
+            GeoCalculator.pointsAt(0, 0, bearings, distances, lats, new double[SIZE - 1]);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
 }
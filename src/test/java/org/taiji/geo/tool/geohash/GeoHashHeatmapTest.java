@@ -0,0 +1,96 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GeoHashHeatmapTest {
+    private static final int SIZE = 40000;
+    private static final int THREADS = 4;
+
+    @Test
+    public void testRollup() throws Exception {
+        Random random = new Random(SIZE);
+        double[] lats = new double[SIZE];
+        double[] lngs = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            lats[i] = 31.2 + random.nextGaussian() * 0.5;
+            lngs[i] = 121.4 + random.nextGaussian() * 0.5;
+        }
+        GeoHashHeatmap heatmap = new GeoHashHeatmap(Base32.getBase32(7), 8);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?>[] futures = new Future<?>[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures[t] = executor.submit(() -> {
+                for (int i = thread; i < SIZE; i += THREADS) {
+                    heatmap.add(lats[i], lngs[i], i);
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        GeoHashHeatmap.Snapshot finest = heatmap.snapshot(7);
+        for (int length = 7; length >= 4; length--) {
+            GeoHash geoHash = Base32.getBase32(length);
+            Map<String, long[]> expected = new HashMap<>();
+            for (int i = 0; i < SIZE; i++) {
+                long[] value = expected.computeIfAbsent(geoHash.encode(lats[i], lngs[i]), hash -> new long[2]);
+                value[0]++;
+                value[1] += i;
+            }
+            GeoHashHeatmap.Snapshot snapshot = heatmap.snapshot(length);
+            GeoHashHeatmap.Snapshot rolled = finest.rollup(length);
+            assertEquals(expected.size(), snapshot.size());
+            assertEquals(expected.size(), rolled.size());
+            long total = 0;
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (i > 0) {
+                    assertTrue(snapshot.getBits(i - 1) < snapshot.getBits(i));
+                }
+                long[] value = expected.get(snapshot.getHash(i));
+                assertEquals(value[0], snapshot.getCount(i));
+                assertEquals(value[1], snapshot.getSum(i), 0);
+                assertEquals(snapshot.getBits(i), rolled.getBits(i));
+                assertEquals(snapshot.getCount(i), rolled.getCount(i));
+                assertEquals(snapshot.getSum(i), rolled.getSum(i), 0);
+                assertEquals(snapshot.getCount(i), snapshot.count(snapshot.getBits(i)));
+                total += snapshot.getCount(i);
+            }
+            assertEquals(SIZE, total);
+        }
+        heatmap.clear();
+        assertEquals(0, heatmap.snapshot(5).size());
+    }
+
+    @Test(timeout = 60000)
+    public void testManyCells() {
+        // 每个分段超过10万个块, 分段与分段内的槽位若取自同一段哈希位, 探测链会退化成线性扫描
+        int cells = 1000000;
+        GeoHash geoHash = Base32.getBase32(8);
+        GeoHashHeatmap heatmap = new GeoHashHeatmap(geoHash, 8);
+        long base = geoHash.toBits(31.2304, 121.4737);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < cells; i++) {
+                heatmap.add(base + i, 1, i);
+            }
+        }
+        GeoHashHeatmap.Snapshot snapshot = heatmap.snapshot(8);
+        assertEquals(cells, snapshot.size());
+        for (int i = 0; i < cells; i++) {
+            assertEquals(base + i, snapshot.getBits(i));
+            assertEquals(2, snapshot.getCount(i));
+            assertEquals(2d * i, snapshot.getSum(i), 0);
+        }
+    }
+}
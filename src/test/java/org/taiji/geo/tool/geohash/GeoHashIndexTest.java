@@ -0,0 +1,171 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoHashIndexTest {
+    private static final int SIZE = 20000;
+    private final Random random = new Random(SIZE);
+    private double[] lats;
+    private double[] lngs;
+    private GeoHashIndex index;
+
+    @Before
+    public void before() {
+        lats = new double[SIZE];
+        lngs = new double[SIZE];
+        index = new GeoHashIndex(Base32.getBase32(12));
+        for (int i = 0; i < SIZE; i++) {
+            // 一半聚集在上海附近, 一半全球分布
+            if (i % 2 == 0) {
+                lats[i] = 31.2 + random.nextGaussian() * 0.1;
+                lngs[i] = 121.4 + random.nextGaussian() * 0.1;
+            } else {
+                lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+                lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+            }
+            index.insert(i, lats[i], lngs[i]);
+        }
+    }
+
+    @Test
+    public void testWithin() {
+        for (double radius : new double[]{100, 1000, 10000, 500000}) {
+            double lat = 31.2 + random.nextGaussian() * 0.05;
+            double lng = 121.4 + random.nextGaussian() * 0.05;
+            long[] ids = index.within(lat, lng, radius);
+            Arrays.sort(ids);
+            assertArrayEquals(bruteWithin(lat, lng, radius), ids);
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        double[][] queries = new double[][]{{31.21, 121.45}, {0, 0}, {-60, 179.9}, {89.5, 10}};
+        for (double[] query : queries) {
+            for (int k : new int[]{1, 10, 100}) {
+                long[] ids = index.nearest(query[0], query[1], k);
+                assertEquals(k, ids.length);
+                double[] expected = bruteNearest(query[0], query[1], k);
+                for (int i = 0; i < k; i++) {
+                    int id = (int) ids[i];
+                    assertEquals(expected[i], GeoCalculator.harvesineDistance(query[0], query[1], lats[id], lngs[id]), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        assertTrue(index.remove(0, lats[0], lngs[0]));
+        assertFalse(index.remove(0, lats[0], lngs[0]));
+        assertEquals(SIZE - 1, index.size());
+        long[] ids = index.within(lats[0], lngs[0], 1);
+        for (long id : ids) {
+            assertNotEquals(0, id);
+        }
+    }
+
+    @Test
+    public void testInsertAfterQuery() {
+        // 检索之后再插入, 新点与已归并的点交错, 同一坐标的点可以重复
+        double lat = lats[0];
+        double lng = lngs[0];
+        assertEquals(SIZE, index.nearest(lat, lng, SIZE + 1).length);
+        for (int i = 0; i < 100; i++) {
+            index.insert(SIZE + i, lats[i], lngs[i]);
+        }
+        assertEquals(SIZE + 100, index.size());
+        long[] ids = index.within(lat, lng, 1);
+        Arrays.sort(ids);
+        assertArrayEquals(new long[]{0, SIZE}, ids);
+        assertTrue(index.remove(SIZE, lat, lng));
+        index.insert(SIZE, lat, lng);
+        ids = index.within(lat, lng, 1);
+        Arrays.sort(ids);
+        assertArrayEquals(new long[]{0, SIZE}, ids);
+    }
+
+    @Test(timeout = 30000)
+    public void testBulkInsert() {
+        // 逐个插入后检索, 不因插入时的数组移动退化为O(n^2)
+        GeoHashIndex bulk = new GeoHashIndex(Base32.getBase32(12));
+        int size = 1000000;
+        for (int i = 0; i < size; i++) {
+            bulk.insert(i, lats[i % SIZE] + i / SIZE * 1e-5, lngs[i % SIZE]);
+        }
+        assertEquals(size, bulk.size());
+        assertEquals(10, bulk.nearest(31.2, 121.4, 10).length);
+        long[] ids = bulk.within(lats[1], lngs[1], 1e-3);
+        assertEquals(1, ids.length);
+        assertEquals(1, ids[0]);
+    }
+
+    @Test
+    public void testChurn() {
+        // 插入, 删除和检索交替进行, 跨过新插入和增量数组的归并阈值
+        GeoHashIndex churn = new GeoHashIndex(Base32.getBase32(12));
+        boolean[] present = new boolean[SIZE];
+        for (int round = 0; round < 40; round++) {
+            for (int k = 0; k < 300; k++) {
+                int id = random.nextInt(SIZE);
+                if (present[id]) {
+                    assertTrue(churn.remove(id, lats[id], lngs[id]));
+                } else {
+                    churn.insert(id, lats[id], lngs[id]);
+                }
+                present[id] = !present[id];
+            }
+            double lat = 31.2 + random.nextGaussian() * 0.05;
+            double lng = 121.4 + random.nextGaussian() * 0.05;
+            LongList expected = new LongList();
+            int count = 0;
+            for (int i = 0; i < SIZE; i++) {
+                if (present[i]) {
+                    count++;
+                    if (GeoCalculator.harvesineDistance(lat, lng, lats[i], lngs[i]) <= 20000) {
+                        expected.add(i);
+                    }
+                }
+            }
+            assertEquals(count, churn.size());
+            long[] ids = churn.within(lat, lng, 20000);
+            Arrays.sort(ids);
+            assertArrayEquals(expected.toArray(), ids);
+            long[] nearest = churn.nearest(lat, lng, 5);
+            for (int i = 0; i < nearest.length; i++) {
+                assertTrue(present[(int) nearest[i]]);
+                if (i > 0) {
+                    int prev = (int) nearest[i - 1];
+                    int id = (int) nearest[i];
+                    assertTrue(GeoCalculator.harvesineDistance(lat, lng, lats[prev], lngs[prev])
+                        <= GeoCalculator.harvesineDistance(lat, lng, lats[id], lngs[id]));
+                }
+            }
+        }
+    }
+
+    private long[] bruteWithin(double lat, double lng, double radius) {
+        LongList list = new LongList();
+        for (int i = 0; i < SIZE; i++) {
+            if (GeoCalculator.harvesineDistance(lat, lng, lats[i], lngs[i]) <= radius) {
+                list.add(i);
+            }
+        }
+        return list.toArray();
+    }
+
+    private double[] bruteNearest(double lat, double lng, int k) {
+        double[] distances = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            distances[i] = GeoCalculator.harvesineDistance(lat, lng, lats[i], lngs[i]);
+        }
+        Arrays.sort(distances);
+        return Arrays.copyOf(distances, k);
+    }
+}
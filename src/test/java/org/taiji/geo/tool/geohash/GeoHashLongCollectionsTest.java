@@ -0,0 +1,126 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GeoHashLongCollectionsTest {
+    private static final int SIZE = 100000;
+
+    /**
+     * 同一区域内的块, 比特串的低位高度相关, 另混入0和极端值
+     */
+    private long[] keys(Random random) {
+        GeoHash geoHash = Base32.getBase32(8);
+        long[] keys = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = geoHash.toBits(31.2 + random.nextDouble() * 0.2, 121.4 + random.nextDouble() * 0.2);
+        }
+        keys[0] = 0;
+        keys[1] = -1;
+        keys[2] = Long.MIN_VALUE;
+        return keys;
+    }
+
+    @Test
+    public void testSet() {
+        Random random = new Random(SIZE);
+        long[] keys = keys(random);
+        GeoHashLongSet set = new GeoHashLongSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < SIZE * 2; i++) {
+            long key = keys[random.nextInt(SIZE)];
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long key : keys) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        long[] array = set.toArray();
+        assertEquals(expected.size(), array.length);
+        for (long key : array) {
+            assertTrue(expected.contains(key));
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void testIntMap() {
+        Random random = new Random(SIZE);
+        long[] keys = keys(random);
+        GeoHashLongToIntMap map = new GeoHashLongToIntMap(SIZE);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < SIZE * 2; i++) {
+            long key = keys[random.nextInt(SIZE)];
+            switch (random.nextInt(4)) {
+                case 0:
+                    Integer removed = expected.remove(key);
+                    assertEquals(removed == null ? 0 : removed, map.remove(key));
+                    break;
+                case 1:
+                    Integer old = expected.put(key, i);
+                    assertEquals(old == null ? 0 : old, map.put(key, i));
+                    break;
+                default:
+                    assertEquals((int) expected.merge(key, 1, Integer::sum), map.addTo(key, 1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key : keys) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals((int) expected.getOrDefault(key, -1), map.getOrDefault(key, -1));
+        }
+        int[] count = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals((int) expected.get(key), value);
+            count[0]++;
+        });
+        assertEquals(expected.size(), count[0]);
+    }
+
+    @Test
+    public void testObjectMap() {
+        Random random = new Random(SIZE);
+        long[] keys = keys(random);
+        GeoHashLongToObjectMap<String> map = new GeoHashLongToObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < SIZE * 2; i++) {
+            long key = keys[random.nextInt(SIZE)];
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                    break;
+                default:
+                    assertEquals(expected.computeIfAbsent(key, k -> "c" + k), map.computeIfAbsent(key, k -> "c" + k));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        int[] count = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            count[0]++;
+        });
+        assertEquals(expected.size(), count[0]);
+        map.clear();
+        assertNull(map.get(keys[3]));
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,149 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GeoHashStoreTest {
+    private static final int SIZE = 20000;
+    private final Random random = new Random(SIZE);
+    private double[] lats;
+    private double[] lngs;
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void before() throws IOException {
+        lats = new double[SIZE];
+        lngs = new double[SIZE];
+        dir = Files.createTempDirectory("geohash-store");
+        file = dir.resolve("points.ghs");
+        // 较小的chunk强制产生多个临时文件并归并
+        try (GeoHashStore.Writer writer = GeoHashStore.writer(file, Base32.getBase32(12), 3000)) {
+            for (int i = 0; i < SIZE; i++) {
+                if (i % 2 == 0) {
+                    lats[i] = 31.2 + random.nextGaussian() * 0.1;
+                    lngs[i] = 121.4 + random.nextGaussian() * 0.1;
+                } else {
+                    lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+                    lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+                }
+                writer.add(i, lats[i], lngs[i]);
+            }
+        }
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testLayout() throws IOException {
+        try (GeoHashStore store = GeoHashStore.open(file)) {
+            assertEquals(SIZE, store.size());
+            assertEquals(12, store.getGeoHash().getLength());
+            boolean[] seen = new boolean[SIZE];
+            for (long i = 0; i < store.size(); i++) {
+                if (i > 0) {
+                    assertTrue(store.getBits(i - 1) <= store.getBits(i));
+                }
+                int id = (int) store.getId(i);
+                assertFalse(seen[id]);
+                seen[id] = true;
+                assertEquals(lats[id], store.getLat(i), 0);
+                assertEquals(lngs[id], store.getLng(i), 0);
+                assertEquals(Base32.getBase32(12).toBits(lats[id], lngs[id]), store.getBits(i));
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals("temporary runs expected to be deleted", 1, files.count());
+        }
+    }
+
+    @Test
+    public void testMultiPassMerge() throws IOException {
+        // 每个临时文件100条, 共200个, 每次最多归并3个, 需要多轮归并
+        Path multi = dir.resolve("multi.ghs");
+        try (GeoHashStore.Writer writer = GeoHashStore.writer(multi, Base32.getBase32(12), 100, 3)) {
+            for (int i = 0; i < SIZE; i++) {
+                writer.add(i, lats[i], lngs[i]);
+            }
+        }
+        try (GeoHashStore store = GeoHashStore.open(file); GeoHashStore merged = GeoHashStore.open(multi)) {
+            assertEquals(store.size(), merged.size());
+            for (long i = 0; i < store.size(); i++) {
+                assertEquals(store.getBits(i), merged.getBits(i));
+                assertEquals(store.getLat(i), merged.getLat(i), 0);
+                assertEquals(store.getLng(i), merged.getLng(i), 0);
+            }
+        } finally {
+            Files.delete(multi);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals("temporary runs expected to be deleted", 1, files.count());
+        }
+        try {
+            GeoHashStore.writer(multi, Base32.getBase32(12), 100, 1);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWithin() throws IOException {
+        try (GeoHashStore store = GeoHashStore.open(file)) {
+            for (double radius : new double[]{100, 1000, 10000, 500000}) {
+                double lat = 31.2 + random.nextGaussian() * 0.05;
+                double lng = 121.4 + random.nextGaussian() * 0.05;
+                long[] ids = store.within(lat, lng, radius);
+                Arrays.sort(ids);
+                assertArrayEquals(bruteWithin(lat, lng, radius), ids);
+            }
+        }
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        RangeCoverer coverer = new RangeCoverer(Base32.getBase32(12), 16);
+        try (GeoHashStore store = GeoHashStore.open(file)) {
+            int[] count = new int[1];
+            for (GeoHashRange range : coverer.cover(31.0, 31.4, 121.2, 121.6)) {
+                store.scan(range, (id, lat, lng) -> {
+                    if (lat >= 31.0 && lat <= 31.4 && lng >= 121.2 && lng <= 121.6) {
+                        count[0]++;
+                    }
+                });
+            }
+            int expected = 0;
+            for (int i = 0; i < SIZE; i++) {
+                if (lats[i] >= 31.0 && lats[i] <= 31.4 && lngs[i] >= 121.2 && lngs[i] <= 121.6) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, count[0]);
+        }
+    }
+
+    private long[] bruteWithin(double lat, double lng, double radius) {
+        LongList result = new LongList();
+        for (int i = 0; i < SIZE; i++) {
+            if (GeoCalculator.harvesineDistance(lat, lng, lats[i], lngs[i]) <= radius) {
+                result.add(i);
+            }
+        }
+        return result.toArray();
+    }
+}
@@ -0,0 +1,81 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.DoubleStream;
+
+import static org.junit.Assert.*;
+
+public class GeoHashStreamsTest {
+    // 不是批大小的整数倍, 覆盖最后不足一批的情况
+    private static final int SIZE = GeoHashStreams.DEFAULT_BATCH * 3 + 17;
+    private final GeoHash geoHash = Base32.getBase32(12);
+
+    @Test
+    public void testPositions() {
+        List<Position> positions = positions();
+        long[] bits = GeoHashStreams.toBits(geoHash, positions.stream()).toArray();
+        assertEquals(SIZE, bits.length);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(geoHash.toBits(positions.get(i)), bits[i]);
+        }
+        // 逐个取出
+        assertEquals(geoHash.toBits(positions.get(0)), GeoHashStreams.toBits(geoHash, positions.stream()).findFirst().getAsLong());
+        assertEquals(0, GeoHashStreams.toBits(geoHash, new ArrayList<Position>().stream()).count());
+    }
+
+    @Test
+    public void testColumns() {
+        List<Position> positions = positions();
+        double[] lats = positions.stream().mapToDouble(Position::getLat).toArray();
+        double[] lngs = positions.stream().mapToDouble(Position::getLng).toArray();
+        AtomicBoolean closed = new AtomicBoolean();
+        long[] bits = GeoHashStreams.toBits(geoHash, DoubleStream.of(lats), DoubleStream.of(lngs).onClose(() -> closed.set(true)))
+            .limit(SIZE - 1)
+            .toArray();
+        assertEquals(SIZE - 1, bits.length);
+        for (int i = 0; i < bits.length; i++) {
+            assertEquals(geoHash.toBits(lats[i], lngs[i]), bits[i]);
+        }
+        GeoHashStreams.toBits(geoHash, DoubleStream.of(lats), DoubleStream.of(lngs).onClose(() -> closed.set(true))).close();
+        assertTrue(closed.get());
+        try {
+            GeoHashStreams.toBits(geoHash, DoubleStream.of(lats), DoubleStream.of(lngs).skip(1)).count();
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+        try {
+            // 元素数未知, 遍历到末尾时发现
+            GeoHashStreams.toBits(geoHash, DoubleStream.of(lats).filter(lat -> true), DoubleStream.of(lngs).skip(1)).toArray();
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCollector() {
+        List<Position> positions = positions();
+        long[] sequential = positions.stream().collect(GeoHashStreams.toBitsArray(geoHash));
+        long[] parallel = positions.parallelStream().collect(GeoHashStreams.toBitsArray(geoHash));
+        assertArrayEquals(sequential, parallel);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(geoHash.toBits(positions.get(i)), sequential[i]);
+        }
+    }
+
+    private List<Position> positions() {
+        Random random = new Random(SIZE);
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            positions.add(new Position(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        return positions;
+    }
+}
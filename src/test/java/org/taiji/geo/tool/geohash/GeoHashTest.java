@@ -4,8 +4,14 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -193,6 +199,54 @@ public class GeoHashTest {
         logger.info(neibor.toString());
     }
 
+    @Test
+    public void testNeighbors() {
+        Base32 base32 = Base32.getBase32(6);
+        long[] cells = new long[Neibor.SIZE];
+        double[] box = new double[4];
+        long bits = base32.toBits(LAT, LNG);
+        base32.decodeBox(bits, box);
+        double latCell = box[1] - box[0];
+        double lngCell = box[3] - box[2];
+        base32.neighbors(bits, cells);
+        Neibor neibor = base32.getNeibor(base32.toHash(bits));
+        String[] hashes = neibor.toArray();
+        for (int i = 0; i < Neibor.SIZE; i++) {
+            int dLat = 1 - i / 3;
+            int dLng = i % 3 - 1;
+            assertEquals(base32.toBits(LAT + dLat * latCell, LNG + dLng * lngCell), cells[i]);
+            assertEquals(base32.toHash(cells[i]), hashes[i]);
+        }
+
+        // 跨越180°经线回绕
+        long east = base32.toBits(0.1, 179.99);
+        base32.neighbors(east, cells);
+        assertEquals(base32.toBits(0.1, -179.99), cells[Neibor.EAST]);
+        long[] wrapped = new long[Neibor.SIZE];
+        base32.neighbors(cells[Neibor.EAST], wrapped);
+        assertEquals(east, wrapped[Neibor.WEST]);
+
+        // 极点处截断
+        long north = base32.toBits(89.999, 10);
+        base32.neighbors(north, cells);
+        assertEquals(cells[Neibor.WEST], cells[Neibor.NORTHWEST]);
+        assertEquals(north, cells[Neibor.NORTH]);
+        assertEquals(cells[Neibor.EAST], cells[Neibor.NORTHEAST]);
+        neibor = base32.getNeibor(base32.toHash(north));
+        assertNull(neibor.getNorth());
+        assertNotNull(neibor.getSouth());
+
+        // 短于编码长度的hash串视为前缀, 取前缀块内左下角的块
+        GeoHash geoHash = Base32.getBase32(12);
+        neibor = geoHash.getNeibor("wtw37");
+        assertEquals("wtw37", neibor.getCenter());
+        assertEquals("wtw370000001", neibor.getNorth());
+        assertEquals("wtw370000002", neibor.getEast());
+        assertTrue(neibor.getWest().startsWith("wtw36"));
+        assertArrayEquals(new int[]{geoHash.latBits(geoHash.toBits("wtw370000000")), geoHash.lngBits(geoHash.toBits("wtw370000000"))},
+            geoHash.separate("wtw37"));
+    }
+
     @Test
     public void testDistince() {
         double[] distinces = GeoHash.charDistance(Base32.CHAR_BIT_LEN);
@@ -212,4 +266,264 @@ public class GeoHashTest {
         logger.info("base16 length by 2.0cm: {}", base16Len2);
         logger.info("base32 length by 2.0cm: {}", base32Len2);
     }
+
+    @Test
+    public void testLongApi() {
+        GeoHash[] geoHashes = new GeoHash[]{Base4.getBase4(7), Base16.getBase16(15), Base32.getBase32(5), Base32.getBase32(12)};
+        double[] box = new double[4];
+        for (GeoHash geoHash : geoHashes) {
+            String hash = geoHash.encode(LAT, LNG);
+            long bits = geoHash.toBits(LAT, LNG);
+            assertEquals(bits, geoHash.toBits(hash));
+            assertEquals(hash, geoHash.toHash(bits));
+            Position position = geoHash.decode(hash);
+            assertEquals(position.getLat(), geoHash.decodeLat(bits), 0);
+            assertEquals(position.getLng(), geoHash.decodeLng(bits), 0);
+            geoHash.decodeBox(bits, box);
+            logger.info("{}: [{}, {}] x [{}, {}]", hash, box[0], box[1], box[2], box[3]);
+            assertTrue(box[0] <= LAT && LAT < box[1]);
+            assertTrue(box[2] <= LNG && LNG < box[3]);
+            assertEquals(position.getLat(), (box[0] + box[1]) / 2, 1e-12);
+            assertEquals(position.getLng(), (box[2] + box[3]) / 2, 1e-12);
+        }
+    }
+
+    @Test
+    public void testInterleave() {
+        Random random = new Random(LAT_BIT_STR.hashCode());
+        GeoHash[] geoHashes = new GeoHash[32 + 16 + 12];
+        for (int i = 1; i <= 32; i++) {
+            geoHashes[i - 1] = Base4.getBase4(i);
+        }
+        for (int i = 1; i <= 16; i++) {
+            geoHashes[32 + i - 1] = Base16.getBase16(i);
+        }
+        for (int i = 1; i <= 12; i++) {
+            geoHashes[48 + i - 1] = Base32.getBase32(i);
+        }
+        for (GeoHash geoHash : geoHashes) {
+            int lngTimes = (geoHash.getBitsLength() + 1) / 2;
+            int latTimes = geoHash.getBitsLength() / 2;
+            for (int i = 0; i < 1000; i++) {
+                int lngBits = (int) (random.nextLong() & ((1L << lngTimes) - 1));
+                int latBits = (int) (random.nextLong() & ((1L << latTimes) - 1));
+                long bits = loopCompact(lngBits, latBits, lngTimes > latTimes);
+                assertEquals(bits, geoHash.compact(lngBits, latBits));
+                String hash = geoHash.toHash(bits);
+                int[] ints = geoHash.separate(hash);
+                assertEquals(latBits, ints[0]);
+                assertEquals(lngBits, ints[1]);
+                assertEquals(latBits, geoHash.latBits(bits));
+                assertEquals(lngBits, geoHash.lngBits(bits));
+            }
+        }
+    }
+
+    @Test
+    public void testQuantize() {
+        Random random = new Random(BIT_STR.hashCode());
+        double[][] ranges = new double[][]{{GeoHash.MIN_LAT, GeoHash.MAX_LAT}, {GeoHash.MIN_LNG, GeoHash.MAX_LNG}};
+        double[] specials = new double[]{-180, -90, -0.0, 0, 90, 180, -200, 200, Double.NaN,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE, LAT, LNG};
+        for (int times = 1; times <= 32; times++) {
+            for (double[] range : ranges) {
+                double begin = range[0];
+                double end = range[1];
+                double cell = (end - begin) / (1L << times);
+                for (double pos : specials) {
+                    assertQuantize(begin, end, pos, times);
+                }
+                for (int i = 0; i < 5000; i++) {
+                    // 均匀分布的坐标
+                    assertQuantize(begin, end, begin + random.nextDouble() * (end - begin), times);
+                    // 方块边界及其相邻的double
+                    long index = (long) (random.nextDouble() * (1L << times));
+                    double edge = begin + index * cell;
+                    assertQuantize(begin, end, edge, times);
+                    assertQuantize(begin, end, Math.nextDown(edge), times);
+                    assertQuantize(begin, end, Math.nextUp(edge), times);
+                    // 解码
+                    int bits = random.nextInt();
+                    assertEquals(GeoHash.binarySearch(begin, end, bits, times), GeoHash.dequantize(begin, end, bits, times), 0);
+                }
+            }
+        }
+    }
+
+    private static void assertQuantize(double begin, double end, double pos, int times) {
+        assertEquals("pos: " + pos + ", times: " + times,
+            GeoHash.binarySearch(begin, end, pos, times), GeoHash.quantize(begin, end, pos, times));
+    }
+
+    @Test
+    public void testBatch() {
+        Random random = new Random(BASE32_HASH.hashCode());
+        int size = 1000;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+            lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+        }
+        for (GeoHash geoHash : new GeoHash[]{Base4.getBase4(13), Base16.getBase16(16), Base32.getBase32(9)}) {
+            int length = geoHash.getLength();
+            long[] bits = new long[size];
+            String[] hashes = new String[size];
+            char[] chars = new char[size * length];
+            double[] latsOut = new double[size];
+            double[] lngsOut = new double[size];
+            geoHash.toBits(lats, lngs, bits);
+            geoHash.encode(lats, lngs, hashes);
+            geoHash.encode(lats, lngs, chars);
+            geoHash.decode(bits, latsOut, lngsOut);
+            for (int i = 0; i < size; i++) {
+                String hash = geoHash.encode(lats[i], lngs[i]);
+                assertEquals(geoHash.toBits(lats[i], lngs[i]), bits[i]);
+                assertEquals(hash, hashes[i]);
+                assertEquals(hash, new String(chars, i * length, length));
+                Position position = geoHash.decode(hash);
+                assertEquals(position.getLat(), latsOut[i], 0);
+                assertEquals(position.getLng(), lngsOut[i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testCharDecode() {
+        GeoHash[] geoHashes = new GeoHash[]{Base4.getBase4(16), Base16.getBase16(12), Base32.getBase32(12)};
+        for (GeoHash geoHash : geoHashes) {
+            char[] chars = geoHash.charSet();
+            for (int i = 0; i < chars.length; i++) {
+                assertEquals(i, geoHash.charDecode(chars[i]));
+                assertEquals(i, geoHash.charDecode(Character.toUpperCase(chars[i])));
+            }
+            int valid = 0;
+            for (char c = 0; c < 256; c++) {
+                if (geoHash.charDecode(c) >= 0) {
+                    valid++;
+                }
+            }
+            assertEquals(chars.length + countLetters(chars), valid);
+            assertEquals(-1, geoHash.charDecode('\u4e2d'));
+        }
+
+        GeoHash geoHash = Base32.getBase32(12);
+        String hash = geoHash.encode(31.2304, 121.4737);
+        assertEquals(geoHash.toBits(hash), geoHash.toBits(hash.toUpperCase()));
+        assertEquals(geoHash.toBits(hash), geoHash.toBits(new StringBuilder(hash)));
+        byte[] buffer = ("##" + hash + "##").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(geoHash.toBits(hash), geoHash.toBits(buffer, 2));
+        assertEquals(geoHash.decode(hash).getLat(), geoHash.decode(buffer, 2).getLat(), 0);
+        assertEquals(geoHash.decode(hash).getLng(), geoHash.decode(new StringBuilder(hash)).getLng(), 0);
+        // 短于编码长度的hash串视为前缀, 解码结果落在前缀块内
+        BoundingBox prefix = Base32.getBase32(5).decodeBounds("wtw37");
+        for (CharSequence shorter : new CharSequence[]{"wtw37", new StringBuilder("WTW37")}) {
+            Position position = geoHash.decode(shorter);
+            assertTrue(prefix.contains(position.getLat(), position.getLng()));
+            assertEquals(geoHash.decode("wtw370000000").getLat(), position.getLat(), 0);
+            assertEquals(geoHash.decode("wtw370000000").getLng(), position.getLng(), 0);
+        }
+        assertEquals(31.1572, geoHash.decode("wtw37").getLat(), 1e-4);
+        assertEquals(121.4209, geoHash.decode("wtw37").getLng(), 1e-4);
+        for (String invalid : new String[]{"wtw3sjqa", "wtw3 sjq", "wtw3sjqi", "", "wtw3sjq00000b"}) {
+            try {
+                geoHash.toBits(invalid);
+                fail(invalid);
+            } catch (InvalidParameterException e) {
+                logger.info(e.getMessage());
+            }
+        }
+        try {
+            geoHash.toBits(new byte[hash.length() - 1], 0);
+            fail();
+        } catch (InvalidParameterException e) {
+            logger.info(e.getMessage());
+        }
+        try {
+            geoHash.toBits(buffer, 5);
+            fail();
+        } catch (InvalidParameterException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEncodeInto() {
+        Random random = new Random(16);
+        GeoHash[] geoHashes = new GeoHash[]{Base4.getBase4(20), Base16.getBase16(9), Base32.getBase32(12)};
+        for (GeoHash geoHash : geoHashes) {
+            int length = geoHash.getLength();
+            char[] chars = new char[length + 3];
+            byte[] bytes = new byte[length + 3];
+            ByteBuffer heap = ByteBuffer.allocate(length * 2);
+            ByteBuffer direct = ByteBuffer.allocateDirect(length * 2);
+            for (int i = 0; i < 1000; i++) {
+                double lat = random.nextDouble() * 180 - 90;
+                double lng = random.nextDouble() * 360 - 180;
+                String hash = geoHash.encode(lat, lng);
+                assertEquals(length, geoHash.encode(lat, lng, chars, 3));
+                assertEquals(hash, new String(chars, 3, length));
+                assertEquals(length, geoHash.encode(lat, lng, bytes, 3));
+                assertEquals(hash, new String(bytes, 3, length, StandardCharsets.US_ASCII));
+                for (ByteBuffer buffer : new ByteBuffer[]{heap, direct}) {
+                    buffer.clear();
+                    buffer.put((byte) '#');
+                    assertEquals(length, geoHash.encode(lat, lng, buffer));
+                    assertEquals(length + 1, buffer.position());
+                    buffer.flip();
+                    buffer.get();
+                    assertEquals(geoHash.toBits(hash), geoHash.toBits(buffer));
+                    assertFalse(buffer.hasRemaining());
+                    buffer.position(1);
+                    assertEquals(geoHash.decode(hash).getLat(), geoHash.decode(buffer).getLat(), 0);
+                }
+            }
+            ByteBuffer small = ByteBuffer.allocate(length - 1);
+            try {
+                geoHash.encode(0, 0, small);
+                fail();
+            } catch (BufferOverflowException e) {
+                assertEquals(0, small.position());
+            }
+            try {
+                geoHash.toBits(small);
+                fail();
+            } catch (BufferUnderflowException e) {
+                assertEquals(0, small.position());
+            }
+            try {
+                geoHash.encode(0, 0, chars, 4);
+                fail();
+            } catch (InvalidParameterException e) {
+                logger.info(e.getMessage());
+            }
+        }
+    }
+
+    private static int countLetters(char[] chars) {
+        int count = 0;
+        for (char c : chars) {
+            if (Character.isLetter(c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 逐位循环的交错实现, 作为Morton码实现的对照
+     */
+    private static long loopCompact(int even, int odd, boolean odds) {
+        long e = 0;
+        long o = 0;
+        for (int i = 0; i < 32; i++) {
+            e |= ((long) even << (i + 32) >>> 63) << (63 - i * 2);
+            o |= ((long) odd << (i + 32) >>> 63) << (62 - i * 2);
+        }
+        if (odds) {
+            e >>= 1;
+            o <<= 1;
+        }
+        return e | o;
+    }
 }
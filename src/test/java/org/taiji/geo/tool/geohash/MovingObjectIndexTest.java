@@ -0,0 +1,94 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MovingObjectIndexTest {
+    private static final int SIZE = 10000;
+    private static final int THREADS = 4;
+
+    @Test
+    public void testUpdate() {
+        MovingObjectIndex index = new MovingObjectIndex(Base32.getBase32(6));
+        assertTrue(index.update(1, 31.2, 121.4));
+        // 块内移动不换桶
+        assertFalse(index.update(1, 31.2 + 1e-6, 121.4 + 1e-6));
+        assertArrayEquals(new double[]{31.2 + 1e-6, 121.4 + 1e-6}, index.get(1), 0);
+        assertTrue(index.update(1, 39.9, 116.4));
+        assertEquals(1, index.cellCount());
+        assertArrayEquals(new long[]{1}, index.within(39.9, 116.4, 100));
+        assertEquals(0, index.within(31.2, 121.4, 1000).length);
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertNull(index.get(1));
+        assertEquals(0, index.size());
+        assertEquals(0, index.cellCount());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        MovingObjectIndex index = new MovingObjectIndex(Base32.getBase32(6));
+        double[] lats = new double[SIZE];
+        double[] lngs = new double[SIZE];
+        Random random = new Random(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            lats[i] = 31.2 + random.nextGaussian() * 0.1;
+            lngs[i] = 121.4 + random.nextGaussian() * 0.1;
+            index.update(i, lats[i], lngs[i]);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        Future<?>[] writers = new Future<?>[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers[t] = executor.submit(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                // 每个线程负责一部分对象, 最终位置可由lats/lngs核对
+                for (int round = 0; round < 20; round++) {
+                    for (int i = thread; i < SIZE; i += THREADS) {
+                        lats[i] += r.nextGaussian() * 0.01;
+                        lngs[i] += r.nextGaussian() * 0.01;
+                        index.update(i, lats[i], lngs[i]);
+                    }
+                }
+            });
+        }
+        Future<?> reader = executor.submit(() -> {
+            while (!writers[THREADS - 1].isDone()) {
+                long[] ids = index.within(31.2, 121.4, 5000);
+                long[] sorted = ids.clone();
+                Arrays.sort(sorted);
+                for (int i = 1; i < sorted.length; i++) {
+                    assertNotEquals(sorted[i - 1], sorted[i]);
+                }
+            }
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        reader.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(SIZE, index.size());
+        for (double radius : new double[]{500, 5000, 50000}) {
+            long[] ids = index.within(31.2, 121.4, radius);
+            Arrays.sort(ids);
+            LongList expected = new LongList();
+            for (int i = 0; i < SIZE; i++) {
+                if (GeoCalculator.harvesineDistance(31.2, 121.4, lats[i], lngs[i]) <= radius) {
+                    expected.add(i);
+                }
+            }
+            assertArrayEquals(expected.toArray(), ids);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PreparedOriginTest {
+    private final Random random = new Random(21);
+
+    @Test
+    public void testHarvesine() {
+        for (int i = 0; i < 100000; i++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = random.nextDouble() * 360 - 180;
+            double foreLat = random.nextDouble() * 180 - 90;
+            double foreLng = random.nextDouble() * 360 - 180;
+            PreparedOrigin origin = new PreparedOrigin(lat, lng);
+            assertEquals(GeoCalculator.harvesineDistance(lat, lng, foreLat, foreLng), origin.harvesineDistance(foreLat, foreLng), 0);
+        }
+    }
+
+    @Test
+    public void testErrorBound() {
+        // 文档中的误差上界: 纬度70°以内100km内小于1e-4, 纬度80°以内100km内小于5e-4
+        double[][] bounds = new double[][]{{70, 10000, 1e-6}, {70, 100000, 1e-4}, {80, 100000, 5e-4}};
+        for (double[] bound : bounds) {
+            for (int i = 0; i < 100000; i++) {
+                double[] pair = pair(bound[0], bound[1]);
+                double expected = GeoCalculator.harvesineDistance(pair[0], pair[1], pair[2], pair[3]);
+                if (expected < 1) {
+                    continue;
+                }
+                double approx = GeoCalculator.equirectangularDistance(pair[0], pair[1], pair[2], pair[3]);
+                double prepared = new PreparedOrigin(pair[0], pair[1]).equirectangularDistance(pair[2], pair[3]);
+                assertEquals(expected, approx, expected * bound[2]);
+                assertEquals(expected, prepared, expected * bound[2]);
+            }
+        }
+    }
+
+    @Test
+    public void testWithin() {
+        for (double maxLat : new double[]{60, 80, 89}) {
+            for (double radius : new double[]{50, 1000, 20000, 100000, 1000000}) {
+                for (int i = 0; i < 50000; i++) {
+                    // 候选点集中在半径附近, 覆盖误差带
+                    double[] pair = pair(maxLat, radius * (0.9 + random.nextDouble() * 0.2));
+                    PreparedOrigin origin = new PreparedOrigin(pair[0], pair[1]);
+                    boolean expected = GeoCalculator.harvesineDistance(pair[0], pair[1], pair[2], pair[3]) <= radius;
+                    assertEquals(expected, origin.within(pair[2], pair[3], radius));
+                }
+                for (int i = 0; i < 10000; i++) {
+                    double[] pair = pair(maxLat, radius * 3);
+                    PreparedOrigin origin = new PreparedOrigin(pair[0], pair[1]);
+                    boolean expected = GeoCalculator.harvesineDistance(pair[0], pair[1], pair[2], pair[3]) <= radius;
+                    assertEquals(expected, origin.within(pair[2], pair[3], radius));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWithinBoundary() {
+        // 同一经线上的点, 半径恰为大圆距离时应在圆内
+        for (int i = 0; i < 100000; i++) {
+            double lat = random.nextDouble() * 170 - 85;
+            double lng = random.nextDouble() * 360 - 180;
+            double foreLat = lat + random.nextDouble() * 10 - 5;
+            PreparedOrigin origin = new PreparedOrigin(lat, lng);
+            double radius = GeoCalculator.harvesineDistance(lat, lng, foreLat, lng);
+            assertTrue(origin.within(foreLat, lng, radius));
+        }
+    }
+
+    @Test
+    public void testAntimeridian() {
+        PreparedOrigin origin = new PreparedOrigin(0, 179.999);
+        double expected = GeoCalculator.harvesineDistance(0, 179.999, 0, -179.999);
+        assertEquals(expected, origin.equirectangularDistance(0, -179.999), 1e-6);
+        assertEquals(expected, GeoCalculator.equirectangularDistance(0, 179.999, 0, -179.999), 1e-6);
+        assertTrue(origin.within(0, -179.999, 300));
+        assertFalse(origin.within(0, -179.999, 200));
+    }
+
+    /**
+     * 原点纬度不超过maxLat, 另一点在原点distance范围内的随机方向
+     */
+    private double[] pair(double maxLat, double distance) {
+        double lat = (random.nextDouble() * 2 - 1) * maxLat;
+        double lng = random.nextDouble() * 360 - 180;
+        double d = random.nextDouble() * distance / GeoCalculator.EARTH_DIAMETER;
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double foreLat = Math.max(-90, Math.min(90, lat + Math.toDegrees(d * Math.cos(bearing))));
+        double foreLng = lng + Math.toDegrees(d * Math.sin(bearing) / Math.cos(Math.toRadians(lat)));
+        foreLng = GeoCalculator.wrapLng(foreLng);
+        return new double[]{lat, lng, foreLat, foreLng};
+    }
+}
@@ -0,0 +1,76 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RangeCovererTest {
+    private static final Logger logger = LoggerFactory.getLogger(RangeCovererTest.class);
+    private final Base32 base32 = Base32.getBase32(3);
+
+    @Test
+    public void testRectangle() {
+        Region region = Region.rectangle(30.5, 40.2, 110.3, 125.7);
+        assertExact(region, new RangeCoverer(base32, Integer.MAX_VALUE).cover(30.5, 40.2, 110.3, 125.7));
+        assertCapped(region, new RangeCoverer(base32, 5).cover(region), 5);
+    }
+
+    @Test
+    public void testAntimeridian() {
+        Region region = Region.rectangle(-10, 10, 170, -170);
+        assertExact(region, new RangeCoverer(base32, Integer.MAX_VALUE).cover(region));
+        assertCapped(region, new RangeCoverer(base32, 3).cover(region), 3);
+    }
+
+    @Test
+    public void testPolygon() {
+        Polygon polygon = new Polygon(new double[]{30, 45, 38, 20}, new double[]{100, 110, 130, 120});
+        assertTrue(polygon.contains(33, 115));
+        assertFalse(polygon.contains(44, 125));
+        assertExact(polygon, new RangeCoverer(base32, Integer.MAX_VALUE).cover(polygon));
+        assertCapped(polygon, new RangeCoverer(base32, 8).cover(polygon), 8);
+    }
+
+    /**
+     * 不限区间数时, 区间恰好包含与区域相交的全部块
+     */
+    private void assertExact(Region region, List<GeoHashRange> ranges) {
+        logger.info("{} ranges: {}", ranges.size(), ranges);
+        double[] box = new double[4];
+        for (long bits = 0; bits < (1L << base32.getBitsLength()); bits++) {
+            base32.decodeBox(bits, box);
+            assertEquals("bits: " + bits, region.intersects(box), covered(ranges, bits));
+        }
+    }
+
+    /**
+     * 限制区间数时, 不遗漏与区域相交的块
+     */
+    private void assertCapped(Region region, List<GeoHashRange> ranges, int maxRanges) {
+        logger.info("{} ranges: {}", ranges.size(), ranges);
+        assertTrue(ranges.size() <= maxRanges);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertTrue(ranges.get(i - 1).getEnd() < ranges.get(i).getStart());
+        }
+        double[] box = new double[4];
+        for (long bits = 0; bits < (1L << base32.getBitsLength()); bits++) {
+            base32.decodeBox(bits, box);
+            if (region.intersects(box)) {
+                assertTrue("bits: " + bits, covered(ranges, bits));
+            }
+        }
+    }
+
+    private static boolean covered(List<GeoHashRange> ranges, long bits) {
+        for (GeoHashRange range : ranges) {
+            if (range.contains(bits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,178 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TrajectoryEncoderTest {
+    private final Random random = new Random(25);
+
+    @Test
+    public void testRuns() {
+        GeoHash geoHash = Base32.getBase32(7);
+        double[] box = new double[4];
+        geoHash.decodeBox(geoHash.toBits(31.2304, 121.4737), box);
+        // 块的边界和超出范围的坐标, 与逐个编码一致
+        double[] lats = new double[]{31.2304, 31.2304, box[0], box[1], box[1], 90, 90, 91, -90, -90};
+        double[] lngs = new double[]{121.4737, 121.4737, box[2], box[3], box[3], 180, 180, 180, -180, -180};
+        TrajectoryEncoder.Trajectory trajectory = new TrajectoryEncoder(geoHash, 0).encode(lats, lngs);
+        int fix = 0;
+        for (int i = 0; i < trajectory.size(); i++) {
+            assertTrue(trajectory.getCount(i) > 0);
+            if (i > 0) {
+                assertNotEquals(trajectory.getBits(i - 1), trajectory.getBits(i));
+            }
+            for (int k = 0; k < trajectory.getCount(i); k++, fix++) {
+                assertEquals(geoHash.toBits(lats[fix], lngs[fix]), trajectory.getBits(i));
+            }
+        }
+        assertEquals(lats.length, fix);
+        assertEquals(0, new TrajectoryEncoder(geoHash).encode(new double[0], new double[0]).size());
+        // NaN和无穷大不补齐到角落的块, 直接拒绝
+        double[][] invalid = new double[][]{{Double.NaN, 121.4737}, {31.2304, Double.NaN}, {Double.POSITIVE_INFINITY, 121.4737}};
+        for (double[] point : invalid) {
+            try {
+                new TrajectoryEncoder(geoHash).encode(new double[]{31.2304, point[0]}, new double[]{121.4737, point[1]});
+                fail();
+            } catch (InvalidParameterException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testFill() {
+        GeoHash geoHash = Base32.getBase32(8);
+        int size = 2000;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        lats[0] = 39.9042;
+        lngs[0] = 116.4074;
+        for (int i = 1; i < size; i++) {
+            // 稀疏的定位点, 相邻两点相隔若干块
+            lats[i] = lats[i - 1] + random.nextGaussian() * 0.002;
+            lngs[i] = lngs[i - 1] + random.nextGaussian() * 0.002;
+        }
+        TrajectoryEncoder.Trajectory trajectory = new TrajectoryEncoder(geoHash).encode(lats, lngs);
+        long[] neighbors = new long[Neibor.SIZE];
+        double[] box = new double[4];
+        int fix = 0;
+        for (int i = 0; i < trajectory.size(); i++) {
+            long bits = trajectory.getBits(i);
+            if (i > 0) {
+                // 补齐后相邻的块共边
+                geoHash.neighbors(trajectory.getBits(i - 1), neighbors);
+                assertTrue(bits == neighbors[Neibor.NORTH] || bits == neighbors[Neibor.EAST]
+                    || bits == neighbors[Neibor.SOUTH] || bits == neighbors[Neibor.WEST]);
+            }
+            if (trajectory.getCount(i) == 0) {
+                // 补齐的块与前后两个定位点之间的线段相交
+                geoHash.decodeBox(bits, box);
+                assertTrue(intersects(box, lats[fix - 1], lngs[fix - 1], lats[fix], lngs[fix]));
+            }
+            for (int k = 0; k < trajectory.getCount(i); k++, fix++) {
+                assertEquals(geoHash.toBits(lats[fix], lngs[fix]), bits);
+            }
+        }
+        assertEquals(size, fix);
+    }
+
+    @Test
+    public void testAntimeridian() {
+        GeoHash geoHash = Base32.getBase32(6);
+        double[] lats = new double[]{10, 10.01, 10.02};
+        double[] lngs = new double[]{179.95, -179.98, 179.97};
+        TrajectoryEncoder.Trajectory trajectory = new TrajectoryEncoder(geoHash).encode(lats, lngs);
+        // 走跨越±180°经线的一侧, 而不是绕地球一周
+        assertTrue(trajectory.size() < 30);
+        long[] neighbors = new long[Neibor.SIZE];
+        for (int i = 1; i < trajectory.size(); i++) {
+            geoHash.neighbors(trajectory.getBits(i - 1), neighbors);
+            long bits = trajectory.getBits(i);
+            assertTrue(bits == neighbors[Neibor.NORTH] || bits == neighbors[Neibor.EAST]
+                || bits == neighbors[Neibor.SOUTH] || bits == neighbors[Neibor.WEST]);
+        }
+        assertRoundTrip(trajectory);
+    }
+
+    @Test
+    public void testMaxFill() {
+        GeoHash geoHash = Base16.getBase16(8);
+        double[] lats = new double[]{31.2304, 39.9042, 39.9043};
+        double[] lngs = new double[]{121.4737, 116.4074, 116.4075};
+        TrajectoryEncoder.Trajectory trajectory = new TrajectoryEncoder(geoHash, 16).encode(lats, lngs);
+        assertEquals(geoHash.toBits(lats[0], lngs[0]), trajectory.getBits(0));
+        assertEquals(geoHash.toBits(lats[1], lngs[1]), trajectory.getBits(1));
+        assertRoundTrip(trajectory);
+        try {
+            new TrajectoryEncoder(geoHash, -1);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBytes() {
+        GeoHash geoHash = Base32.getBase32(8);
+        int size = 10000;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        lats[0] = 22.5431;
+        lngs[0] = 114.0579;
+        for (int i = 1; i < size; i++) {
+            // 1秒一个定位点, 约10米/秒
+            lats[i] = lats[i - 1] + 0.00009 * Math.sin(i / 500d);
+            lngs[i] = lngs[i - 1] + 0.00009 * Math.cos(i / 700d);
+        }
+        TrajectoryEncoder.Trajectory trajectory = new TrajectoryEncoder(geoHash).encode(lats, lngs);
+        byte[] bytes = trajectory.toBytes();
+        // 每块约一个字节, 不到逐点存储比特串的十分之一
+        assertTrue(bytes.length < trajectory.size() + 32);
+        assertTrue(bytes.length * 10 < size * Long.BYTES);
+        assertRoundTrip(trajectory);
+        assertRoundTrip(new TrajectoryEncoder(geoHash, 0).encode(lats, lngs));
+        assertRoundTrip(new TrajectoryEncoder(geoHash).encode(new double[0], new double[0]));
+        try {
+            TrajectoryEncoder.Trajectory.fromBytes(new byte[]{5, 9, 3, 1});
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    private static void assertRoundTrip(TrajectoryEncoder.Trajectory trajectory) {
+        TrajectoryEncoder.Trajectory decoded = TrajectoryEncoder.Trajectory.fromBytes(trajectory.toBytes());
+        assertEquals(trajectory.getGeoHash().getLength(), decoded.getGeoHash().getLength());
+        assertArrayEquals(trajectory.toBits(), decoded.toBits());
+        for (int i = 0; i < trajectory.size(); i++) {
+            assertEquals(trajectory.getCount(i), decoded.getCount(i));
+            assertEquals(trajectory.getHash(i), decoded.getHash(i));
+        }
+    }
+
+    /**
+     * 线段与方块是否相交(Liang-Barsky裁剪), 方块稍微放大以容忍浮点误差
+     */
+    private static boolean intersects(double[] box, double lat0, double lng0, double lat1, double lng1) {
+        double eps = 1e-9;
+        double[] p = new double[]{-(lng1 - lng0), lng1 - lng0, -(lat1 - lat0), lat1 - lat0};
+        double[] q = new double[]{lng0 - box[2] + eps, box[3] + eps - lng0, lat0 - box[0] + eps, box[1] + eps - lat0};
+        double t0 = 0, t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false;
+                }
+            } else if (p[i] < 0) {
+                t0 = Math.max(t0, q[i] / p[i]);
+            } else {
+                t1 = Math.min(t1, q[i] / p[i]);
+            }
+        }
+        return t0 <= t1;
+    }
+}
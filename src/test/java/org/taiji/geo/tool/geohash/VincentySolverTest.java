@@ -0,0 +1,148 @@
+package org.taiji.geo.tool.geohash;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import static java.lang.Math.*;
+import static org.junit.Assert.*;
+
+public class VincentySolverTest {
+    private final Random random = new Random(23);
+
+    @Test
+    public void testFlindersPeak() {
+        // Vincenty(1975)的算例: Flinders Peak到Buninyong
+        VincentySolver solver = new VincentySolver(-dms(37, 57, 3.72030), dms(144, 25, 29.52440));
+        double[] bearings = new double[2];
+        double distance = solver.inverse(-dms(37, 39, 10.15610), dms(143, 55, 35.38390), bearings);
+        assertEquals(54972.271, distance, 1e-3);
+        assertEquals(dms(306, 52, 5.37), bearings[0], 1e-5);
+        assertEquals(dms(307, 10, 25.07), bearings[1], 1e-5);
+        assertEquals(0, solver.distance(solver.getLat(), solver.getLng()), 0);
+    }
+
+    @Test
+    public void testAntipodal() {
+        // 赤道上的对映点, Vincenty迭代不收敛, 最短线经过极点, 长度为半条子午线
+        VincentySolver solver = new VincentySolver(0, 0);
+        double[] bearings = new double[2];
+        assertEquals(20003931.4586, solver.inverse(0, 180, bearings), 1e-3);
+        assertEquals(20003931.4586, GeoCalculator.vincentyDistance(new Position(0, 0), new Position(0, 180)), 1e-3);
+        // 经南极或北极都是最短线, 出发时向南则到达时向北
+        assertEquals(0, min(angle(bearings[0]), angle(bearings[0] - 180)), 1e-6);
+        assertEquals(0, angle(bearings[0] + bearings[1] - 180), 1e-6);
+        // 近对映点不抛出异常, 距离不超过半条子午线, 正反方向一致
+        for (int i = 0; i < 10000; i++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double foreLat = max(-90, min(90, -lat + random.nextGaussian() * 0.1));
+            double foreLng = 180 - random.nextGaussian() * 0.5;
+            double distance = new VincentySolver(lat, 0).distance(foreLat, foreLng);
+            assertTrue(distance > 19_500_000 && distance <= 20003931.4586 + 1e-3);
+            assertEquals(distance, new VincentySolver(foreLat, foreLng).distance(lat, 0), 1e-4);
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        // 二分求解适用于任意两点, 与收敛的Vincenty迭代一致
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (int i = 0; i < 100000; i++) {
+            double[] u1 = reduced(random.nextDouble() * 180 - 90);
+            double[] u2 = reduced(random.nextDouble() * 180 - 90);
+            double L = toRadians(random.nextDouble() * 360 - 180);
+            double distance = VincentySolver.vincenty(u1[0], u1[1], u2[0], u2[1], L, expected);
+            assertEquals(distance, VincentySolver.fallback(u1[0], u1[1], u2[0], u2[1], L, actual), 1e-4);
+            assertEquals(0, angle(expected[0] - actual[0]), 1e-6);
+            assertEquals(0, angle(expected[1] - actual[1]), 1e-6);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        int size = 1000;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            lngs[i] = random.nextDouble() * 360 - 180;
+        }
+        VincentySolver solver = new VincentySolver(31.2, 121.5);
+        double[] distances = new double[size];
+        double[] initialBearings = new double[size];
+        double[] finalBearings = new double[size];
+        solver.inverse(lats, lngs, distances, initialBearings, finalBearings);
+        double[] out = new double[size];
+        solver.distances(lats, lngs, out);
+        Position stand = new Position(31.2, 121.5);
+        for (int i = 0; i < size; i++) {
+            Position fore = new Position(lats[i], lngs[i]);
+            assertEquals(GeoCalculator.vincentyDistance(stand, fore), distances[i], 0);
+            assertEquals(distances[i], out[i], 0);
+            assertEquals(GeoCalculator.vincentyBearing(stand, fore), initialBearings[i], 0);
+            assertEquals(GeoCalculator.vincentyFinalBearing(stand, fore), finalBearings[i], 0);
+        }
+        try {
+            solver.distances(lats, new double[size - 1], out);
+            fail();
+        } catch (InvalidParameterException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDirect() {
+        // Flinders Peak沿306°52'05.37"前进54972.271米到Buninyong
+        VincentySolver solver = new VincentySolver(-dms(37, 57, 3.72030), dms(144, 25, 29.52440));
+        double[] point = new double[2];
+        solver.destination(dms(306, 52, 5.37), 54972.271, point);
+        assertEquals(-dms(37, 39, 10.15610), point[0], 1e-7);
+        assertEquals(dms(143, 55, 35.38390), point[1], 1e-7);
+        // 正算的结果反算回来, 距离和方位角一致
+        int size = 10000;
+        double[] bearings = new double[size];
+        double[] distances = new double[size];
+        for (int i = 0; i < size; i++) {
+            bearings[i] = random.nextDouble() * 360;
+            distances[i] = random.nextDouble() * 19_000_000;
+        }
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        double[] inverse = new double[2];
+        for (double lat : new double[]{-89.5, -45, 0, 31.2, 80}) {
+            solver = new VincentySolver(lat, 121.5);
+            solver.destinations(bearings, distances, lats, lngs);
+            for (int i = 0; i < size; i++) {
+                assertTrue(lngs[i] >= -180 && lngs[i] < 180);
+                assertEquals(distances[i], solver.inverse(lats[i], lngs[i], inverse), 1e-4);
+                if (distances[i] > 1) {
+                    assertEquals(0, angle(bearings[i] - inverse[0]), 1e-6);
+                }
+            }
+        }
+        // 同一方位角的批量与逐个一致
+        solver.destinations(90, distances, lats, lngs);
+        for (int i = 0; i < 100; i++) {
+            solver.destination(90, distances[i], point);
+            assertEquals(point[0], lats[i], 0);
+            assertEquals(point[1], lngs[i], 0);
+        }
+    }
+
+    private static double dms(int degrees, int minutes, double seconds) {
+        return degrees + minutes / 60d + seconds / 3600;
+    }
+
+    private static double[] reduced(double lat) {
+        double tanU = (1 - VincentySolver.FLATTENING) * tan(toRadians(lat));
+        double cosU = 1 / sqrt(1 + tanU * tanU);
+        return new double[]{tanU * cosU, cosU};
+    }
+
+    private static double angle(double diff) {
+        diff = abs(diff) % 360;
+        return min(diff, 360 - diff);
+    }
+}
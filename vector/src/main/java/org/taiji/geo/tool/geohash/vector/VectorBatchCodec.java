@@ -0,0 +1,205 @@
+package org.taiji.geo.tool.geohash.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.taiji.geo.tool.geohash.BatchCodec;
+import org.taiji.geo.tool.geohash.GeoHash;
+
+import java.security.InvalidParameterException;
+
+/**
+ * 基于JDK Vector API的{@link BatchCodec}实现
+ * 量化和比特交错按lane并行, 结果与{@link GeoHash}的标量实现逐位一致
+ * 字符按点连续输出, 向量化的字符映射需要逐lane分散写入, 实测慢于查表, 因此字符映射采用查表
+ * 不足一个向量的尾部交给标量实现
+ *
+ * @author tim
+ */
+public class VectorBatchCodec implements BatchCodec {
+    static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private static final long M1 = 0x5555555555555555L;
+    private static final long M2 = 0x3333333333333333L;
+    private static final long M4 = 0x0F0F0F0F0F0F0F0FL;
+    private static final long M8 = 0x00FF00FF00FF00FFL;
+    private static final long M16 = 0x0000FFFF0000FFFFL;
+    private static final long M32 = 0x00000000FFFFFFFFL;
+
+    /**
+     * 2^52, 加到[0, 2^52)的double上后低位即为四舍五入的整数
+     * 用于替代D2L转换, 后者在多数CPU上没有向量指令
+     */
+    private static final double ROUND = 0x1p52;
+    private static final long ROUND_BITS = Double.doubleToRawLongBits(ROUND);
+
+    private final GeoHash geoHash;
+    private final int length;
+    private final int charLen;
+    private final int latTimes;
+    private final int lngTimes;
+
+    /**
+     * 经度比特数多于纬度时, 经度放在最低位
+     */
+    private final boolean lngLow;
+
+    private final long latMax;
+    private final long lngMax;
+    private final double latScale;
+    private final double lngScale;
+    private final double latCell;
+    private final double lngCell;
+    private final double latHalfCell;
+    private final double lngHalfCell;
+
+    private final char[] chars;
+
+    public VectorBatchCodec(GeoHash geoHash) {
+        if (DOUBLES.length() != LONGS.length()) {
+            throw new InvalidParameterException("double and long species expected to have the same length.");
+        }
+        this.geoHash = geoHash;
+        this.length = geoHash.getLength();
+        this.charLen = geoHash.getBitsLength() / length;
+        this.lngTimes = (geoHash.getBitsLength() + 1) / 2;
+        this.latTimes = geoHash.getBitsLength() / 2;
+        this.lngLow = lngTimes > latTimes;
+        this.latMax = (1L << latTimes) - 1;
+        this.lngMax = (1L << lngTimes) - 1;
+        this.latCell = (double) (GeoHash.MAX_LAT - GeoHash.MIN_LAT) / (1L << latTimes);
+        this.lngCell = (double) (GeoHash.MAX_LNG - GeoHash.MIN_LNG) / (1L << lngTimes);
+        this.latScale = 1 / latCell;
+        this.lngScale = 1 / lngCell;
+        this.latHalfCell = latCell / 2;
+        this.lngHalfCell = lngCell / 2;
+
+        this.chars = geoHash.charSet();
+    }
+
+    @Override
+    public GeoHash getGeoHash() {
+        return geoHash;
+    }
+
+    @Override
+    public void toBits(double[] lats, double[] lngs, long[] out) {
+        checkBatch(lats.length, lngs.length, out.length);
+        int n = lats.length;
+        int bound = DOUBLES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            bits(lats, lngs, i).intoArray(out, i);
+        }
+        geoHash.toBits(lats, lngs, out, i, n);
+    }
+
+    @Override
+    public void encode(double[] lats, double[] lngs, char[] out) {
+        checkBatch(lats.length, lngs.length, out.length / length);
+        int n = lats.length;
+        int lanes = DOUBLES.length();
+        int bound = DOUBLES.loopBound(n);
+        long[] block = new long[lanes];
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            bits(lats, lngs, i).intoArray(block, 0);
+            for (int lane = 0; lane < lanes; lane++) {
+                write(block[lane], out, (i + lane) * length);
+            }
+        }
+        for (; i < n; i++) {
+            write(geoHash.toBits(lats[i], lngs[i]), out, i * length);
+        }
+    }
+
+    private void write(long bits, char[] out, int offset) {
+        int mask = (1 << charLen) - 1;
+        for (int j = length - 1; j >= 0; j--) {
+            out[offset + j] = chars[(int) (bits & mask)];
+            bits >>>= charLen;
+        }
+    }
+
+    @Override
+    public void decode(long[] bits, double[] latsOut, double[] lngsOut) {
+        checkBatch(bits.length, latsOut.length, lngsOut.length);
+        int n = bits.length;
+        int bound = LONGS.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += LONGS.length()) {
+            LongVector v = LongVector.fromArray(LONGS, bits, i);
+            LongVector latIndex = squash(lngLow ? v.lanewise(VectorOperators.LSHR, 1) : v).and(latMax);
+            LongVector lngIndex = squash(lngLow ? v : v.lanewise(VectorOperators.LSHR, 1)).and(lngMax);
+            dequantize(latIndex, GeoHash.MIN_LAT, latHalfCell).intoArray(latsOut, i);
+            dequantize(lngIndex, GeoHash.MIN_LNG, lngHalfCell).intoArray(lngsOut, i);
+        }
+        for (; i < n; i++) {
+            latsOut[i] = geoHash.decodeLat(bits[i]);
+            lngsOut[i] = geoHash.decodeLng(bits[i]);
+        }
+    }
+
+    private LongVector bits(double[] lats, double[] lngs, int offset) {
+        DoubleVector lat = DoubleVector.fromArray(DOUBLES, lats, offset);
+        DoubleVector lng = DoubleVector.fromArray(DOUBLES, lngs, offset);
+        LongVector latBits = spread(quantize(lat, GeoHash.MIN_LAT, GeoHash.MAX_LAT, latScale, latCell, latMax));
+        LongVector lngBits = spread(quantize(lng, GeoHash.MIN_LNG, GeoHash.MAX_LNG, lngScale, lngCell, lngMax));
+        if (lngLow) {
+            return lngBits.or(latBits.lanewise(VectorOperators.LSHL, 1));
+        }
+        return lngBits.lanewise(VectorOperators.LSHL, 1).or(latBits);
+    }
+
+    /**
+     * 与GeoHash.quantize相同: 按比例估算序号, 再用方块的精确边界修正, 越界或NaN返回全1
+     * 估算采用四舍五入, 与精确序号至多相差1, 由边界修正
+     */
+    private static LongVector quantize(DoubleVector pos, double begin, double end, double scale, double cell, long max) {
+        VectorMask<Long> outside = pos.compare(VectorOperators.GE, begin)
+            .and(pos.compare(VectorOperators.LT, end))
+            .not()
+            .cast(LONGS);
+        LongVector index = pos.sub(begin).mul(scale).add(ROUND).reinterpretAsLongs().sub(ROUND_BITS).min(max);
+        DoubleVector edge = ((DoubleVector) index.convert(VectorOperators.L2D, 0)).mul(cell).add(begin);
+        VectorMask<Long> below = pos.compare(VectorOperators.LT, edge).cast(LONGS);
+        VectorMask<Long> above = pos.compare(VectorOperators.GE, edge.add(cell)).cast(LONGS)
+            .and(index.compare(VectorOperators.LT, max));
+        return index.sub(1, below).add(1, above).blend(max, outside);
+    }
+
+    private static DoubleVector dequantize(LongVector index, double begin, double halfCell) {
+        return ((DoubleVector) index.lanewise(VectorOperators.LSHL, 1).add(1).convert(VectorOperators.L2D, 0))
+            .mul(halfCell)
+            .add(begin);
+    }
+
+    private static LongVector spread(LongVector v) {
+        v = v.and(M32);
+        v = v.or(v.lanewise(VectorOperators.LSHL, 16)).and(M16);
+        v = v.or(v.lanewise(VectorOperators.LSHL, 8)).and(M8);
+        v = v.or(v.lanewise(VectorOperators.LSHL, 4)).and(M4);
+        v = v.or(v.lanewise(VectorOperators.LSHL, 2)).and(M2);
+        v = v.or(v.lanewise(VectorOperators.LSHL, 1)).and(M1);
+        return v;
+    }
+
+    private static LongVector squash(LongVector v) {
+        v = v.and(M1);
+        v = v.or(v.lanewise(VectorOperators.LSHR, 1)).and(M2);
+        v = v.or(v.lanewise(VectorOperators.LSHR, 2)).and(M4);
+        v = v.or(v.lanewise(VectorOperators.LSHR, 4)).and(M8);
+        v = v.or(v.lanewise(VectorOperators.LSHR, 8)).and(M16);
+        v = v.or(v.lanewise(VectorOperators.LSHR, 16)).and(M32);
+        return v;
+    }
+
+    private static void checkBatch(int inputLen, int otherLen, int outputLen) {
+        if (otherLen != inputLen || outputLen < inputLen) {
+            throw new InvalidParameterException("array length mismatch: " + inputLen + ", " + otherLen + ", " + outputLen);
+        }
+    }
+}
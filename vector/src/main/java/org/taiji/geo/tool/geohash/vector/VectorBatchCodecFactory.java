@@ -0,0 +1,33 @@
+package org.taiji.geo.tool.geohash.vector;
+
+import org.taiji.geo.tool.geohash.BatchCodec;
+import org.taiji.geo.tool.geohash.BatchCodecFactory;
+import org.taiji.geo.tool.geohash.GeoHash;
+
+/**
+ * 注册{@link VectorBatchCodec}
+ * 运行时未开启jdk.incubator.vector模块, 或CPU只支持单lane时不可用
+ *
+ * @author tim
+ */
+public class VectorBatchCodecFactory implements BatchCodecFactory {
+    private static final boolean SUPPORTED = detect();
+
+    private static boolean detect() {
+        try {
+            return VectorBatchCodec.DOUBLES.length() > 1 && VectorBatchCodec.DOUBLES.length() == VectorBatchCodec.LONGS.length();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSupported(GeoHash geoHash) {
+        return SUPPORTED;
+    }
+
+    @Override
+    public BatchCodec create(GeoHash geoHash) {
+        return new VectorBatchCodec(geoHash);
+    }
+}
@@ -0,0 +1,74 @@
+package org.taiji.geo.tool.geohash.vector;
+
+import org.junit.Test;
+import org.taiji.geo.tool.geohash.Base16;
+import org.taiji.geo.tool.geohash.Base32;
+import org.taiji.geo.tool.geohash.Base4;
+import org.taiji.geo.tool.geohash.BatchCodec;
+import org.taiji.geo.tool.geohash.GeoHash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VectorBatchCodecTest {
+    private static final int SIZE = 1003; // 不是向量长度的整数倍, 覆盖尾部
+
+    @Test
+    public void testServiceLoader() {
+        assertTrue(BatchCodec.of(Base32.getBase32(12)) instanceof VectorBatchCodec);
+    }
+
+    @Test
+    public void testSameAsScalar() {
+        Random random = new Random(SIZE);
+        double[] lats = new double[SIZE];
+        double[] lngs = new double[SIZE];
+        double[] specials = new double[]{-180, -90, 0, 90, 180, -200, 200, Double.NaN, Math.nextDown(90.0), Math.nextDown(180.0)};
+        for (int i = 0; i < SIZE; i++) {
+            if (i < specials.length) {
+                lats[i] = specials[i];
+                lngs[i] = specials[specials.length - 1 - i];
+            } else {
+                lats[i] = GeoHash.MIN_LAT + random.nextDouble() * (GeoHash.MAX_LAT - GeoHash.MIN_LAT);
+                lngs[i] = GeoHash.MIN_LNG + random.nextDouble() * (GeoHash.MAX_LNG - GeoHash.MIN_LNG);
+            }
+        }
+        List<GeoHash> geoHashes = new ArrayList<>();
+        for (int i = 1; i <= 32; i++) {
+            geoHashes.add(Base4.getBase4(i));
+        }
+        for (int i = 1; i <= 16; i++) {
+            geoHashes.add(Base16.getBase16(i));
+        }
+        for (int i = 1; i <= 12; i++) {
+            geoHashes.add(Base32.getBase32(i));
+        }
+        for (GeoHash geoHash : geoHashes) {
+            BatchCodec scalar = BatchCodec.scalar(geoHash);
+            BatchCodec vector = new VectorBatchCodec(geoHash);
+            long[] expectedBits = new long[SIZE];
+            long[] bits = new long[SIZE];
+            scalar.toBits(lats, lngs, expectedBits);
+            vector.toBits(lats, lngs, bits);
+            assertArrayEquals(expectedBits, bits);
+
+            char[] expectedChars = new char[SIZE * geoHash.getLength()];
+            char[] chars = new char[SIZE * geoHash.getLength()];
+            scalar.encode(lats, lngs, expectedChars);
+            vector.encode(lats, lngs, chars);
+            assertArrayEquals(expectedChars, chars);
+
+            double[] expectedLats = new double[SIZE];
+            double[] expectedLngs = new double[SIZE];
+            double[] latsOut = new double[SIZE];
+            double[] lngsOut = new double[SIZE];
+            scalar.decode(bits, expectedLats, expectedLngs);
+            vector.decode(bits, latsOut, lngsOut);
+            assertArrayEquals(expectedLats, latsOut, 0);
+            assertArrayEquals(expectedLngs, lngsOut, 0);
+        }
+    }
+}